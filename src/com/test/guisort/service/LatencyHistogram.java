@@ -0,0 +1,92 @@
+/*
+ * LatencyHistogram.java - 
+ * Written By: Nicholas DiPasquale 
+ */
+package com.test.guisort.service;
+
+import java.util.concurrent.atomic.*;
+
+/**
+ * A histogram of latencies that may be recorded from many threads at once.
+ * Each bucket counts the latencies from a power of two microseconds up to
+ * the next power of two, so percentiles are reported as the upper bound of
+ * the bucket that holds them.
+ * @author Nicholas DiPasquale
+ */
+public class LatencyHistogram {
+
+	/* The number of power of two buckets */
+	private static final int BUCKETS = 40;
+	
+	/* The count of latencies in each bucket */
+	private final AtomicLongArray _buckets = new AtomicLongArray (BUCKETS);
+	/* The count of all of the latencies */
+	private final AtomicLong _count = new AtomicLong ();
+	
+	/**
+	 * Record a latency
+	 * @param nanos The latency in nanoseconds
+	 */
+	public void record (long nanos) {
+		long micros = Math.max (nanos / 1000L, 1L);
+		int bucket = Math.min (63 - Long.numberOfLeadingZeros (micros), BUCKETS - 1);
+		_buckets.incrementAndGet (bucket);
+		_count.incrementAndGet ();
+	}
+	
+	/**
+	 * Get the number of latencies recorded
+	 * @return The number of latencies
+	 */
+	public long count () {
+		return _count.get ();
+	}
+	
+	/**
+	 * Get the count of latencies in each bucket, bucket i counts the
+	 * latencies from 2^i up to 2^(i + 1) microseconds
+	 * @return The counts of the buckets
+	 */
+	public long[] buckets () {
+		long[] buckets = new long[BUCKETS];
+		for (int i = 0; i < BUCKETS; ++i) {
+			buckets[i] = _buckets.get (i);
+		}
+		return buckets;
+	}
+	
+	/**
+	 * Get an upper bound of the latency at the given percentile
+	 * @param p The percentile from 0 to 100
+	 * @return The upper bound of the bucket of the percentile in
+	 * microseconds, or 0 if no latencies are recorded
+	 * @throws IllegalArgumentException If the percentile is outside of 0 to
+	 * 100
+	 */
+	public long percentile (double p) {
+		if (p < 0.0 || p > 100.0) {
+			throw new IllegalArgumentException ("Percentile: " + p);
+		}
+		long[] buckets = buckets ();
+		long total = 0;
+		for (long count : buckets) {
+			total += count;
+		}
+		long rank = Math.max ((long) Math.ceil (p / 100.0 * total), 1L);
+		for (int i = 0; i < BUCKETS; ++i) {
+			rank -= buckets[i];
+			if (rank <= 0) {
+				return 1L << (i + 1);
+			}
+		}
+		return 0L;
+	}
+	
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	public String toString () {
+		return count () + " requests, p50 < " + percentile (50.0) + "us, p90 < " + percentile (90.0) + "us, p99 < " + percentile (99.0) + "us";
+	}
+	
+}
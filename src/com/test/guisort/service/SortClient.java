@@ -0,0 +1,71 @@
+/*
+ * SortClient.java - 
+ * Written By: Nicholas DiPasquale 
+ */
+package com.test.guisort.service;
+
+import java.io.*;
+import java.net.*;
+
+/**
+ * A client of a SortServer on the loopback interface.  A SortClient holds a
+ * single connection and sends one request at a time.
+ * @author Nicholas DiPasquale
+ */
+public class SortClient implements Closeable {
+
+	/* The socket of the connection */
+	private final Socket _socket;
+	/* The request stream */
+	private final DataOutputStream _out;
+	/* The response stream */
+	private final DataInputStream _in;
+	
+	/**
+	 * Create a new SortClient connected to the SortServer on the given
+	 * loopback port
+	 * @param port The port of the SortServer
+	 * @throws IOException If the connection fails
+	 */
+	public SortClient (int port) throws IOException {
+		_socket = new Socket (InetAddress.getLoopbackAddress (), port);
+		_socket.setTcpNoDelay (true);
+		_out = new DataOutputStream (new BufferedOutputStream (_socket.getOutputStream ()));
+		_in = new DataInputStream (new BufferedInputStream (_socket.getInputStream ()));
+	}
+	
+	/**
+	 * Sort the given keys with the named algorithm on the server
+	 * @param algorithm The name of a SortAlgorithm
+	 * @param keys The keys to sort
+	 * @return A new array of the sorted keys
+	 * @throws IOException If the connection fails or the server reports an
+	 * error
+	 */
+	public synchronized long[] sort (String algorithm, long[] keys) throws IOException {
+		_out.writeUTF (algorithm);
+		_out.writeInt (keys.length);
+		for (long key : keys) {
+			_out.writeLong (key);
+		}
+		_out.flush ();
+		
+		if (_in.readByte () != SortServer.STATUS_OK) {
+			throw new IOException (_in.readUTF ());
+		}
+		long[] sorted = new long[_in.readInt ()];
+		for (int i = 0; i < sorted.length; ++i) {
+			sorted[i] = _in.readLong ();
+		}
+		return sorted;
+	}
+	
+	/**
+	 * Close the connection
+	 * @throws IOException If the socket fails to close
+	 */
+	public void close () throws IOException {
+		_socket.close ();
+	}
+	
+}
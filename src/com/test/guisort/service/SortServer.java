@@ -0,0 +1,189 @@
+/*
+ * SortServer.java - 
+ * Written By: Nicholas DiPasquale 
+ */
+package com.test.guisort.service;
+
+import java.io.*;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * A server on the loopback interface that lets other processes share one
+ * SortService.  Each connection is handled on its own pooled thread and may
+ * send any number of requests, each the algorithm name as a modified UTF-8
+ * string, the number of keys as an int and the keys as longs.  The response
+ * is a status byte followed by the count and the sorted keys, or by an error
+ * message.
+ * @author Nicholas DiPasquale
+ */
+public class SortServer implements Closeable {
+
+	/** The response status of sorted keys */
+	public static final int STATUS_OK = 0;
+	/** The response status of an error message */
+	public static final int STATUS_ERROR = 1;
+	/** The most keys accepted in one request */
+	public static final int MAX_KEYS = 1 << 26;
+	
+	/**
+	 * Implements the Runnable interface to handle the requests of a single
+	 * connection until the client closes it
+	 * @author Nicholas DiPasquale
+	 */
+	private static class Connection implements Runnable {
+		/* The SortService that sorts the requests */
+		private final SortService _service;
+		/* The socket of the connection */
+		private final Socket _socket;
+		/* The open sockets of the server, the socket is removed once closed */
+		private final Set<Socket> _sockets;
+		
+		/**
+		 * Create a new Connection for the given socket
+		 * @param service The SortService that sorts the requests
+		 * @param socket The socket of the connection
+		 * @param sockets The open sockets of the server
+		 */
+		public Connection (SortService service, Socket socket, Set<Socket> sockets) {
+			_service = service;
+			_socket = socket;
+			_sockets = sockets;
+		}
+		
+		/**
+		 * @see java.lang.Runnable#run ()
+		 */
+		public void run () {
+			try {
+				DataInputStream in = new DataInputStream (new BufferedInputStream (_socket.getInputStream ()));
+				DataOutputStream out = new DataOutputStream (new BufferedOutputStream (_socket.getOutputStream ()));
+				while (true) {
+					String algorithm;
+					try {
+						algorithm = in.readUTF ();
+					} catch (EOFException e) {
+						break;
+					}
+					int count = in.readInt ();
+					if (count < 0 || count > MAX_KEYS) {
+						out.writeByte (STATUS_ERROR);
+						out.writeUTF ("Illegal key count: " + count);
+						out.flush ();
+						break;
+					}
+					long[] keys = new long[count];
+					for (int i = 0; i < count; ++i) {
+						keys[i] = in.readLong ();
+					}
+					
+					try {
+						_service.sort (algorithm, keys);
+					} catch (RuntimeException e) {
+						out.writeByte (STATUS_ERROR);
+						out.writeUTF (String.valueOf (e.getMessage ()));
+						out.flush ();
+						continue;
+					}
+					out.writeByte (STATUS_OK);
+					out.writeInt (count);
+					for (long key : keys) {
+						out.writeLong (key);
+					}
+					out.flush ();
+				}
+			} catch (IOException e) {
+				/* The client went away, drop the connection */
+			} catch (InterruptedException e) {
+				Thread.currentThread ().interrupt ();
+			} finally {
+				_sockets.remove (_socket);
+				close (_socket);
+			}
+		}
+		
+	} /* END: class Connection */
+	
+	/*
+	 * Close a socket, ignoring any failure
+	 * @param socket The socket to close
+	 */
+	private static void close (Socket socket) {
+		try {
+			socket.close ();
+		} catch (IOException e) {
+		}
+	}
+	
+	/* The SortService that sorts the requests */
+	private final SortService _service;
+	/* The listening socket */
+	private final ServerSocket _server;
+	/* The threads of the connections */
+	private final ExecutorService _connections = Executors.newCachedThreadPool ();
+	/* The sockets of the open connections */
+	private final Set<Socket> _sockets = Collections.newSetFromMap (new ConcurrentHashMap<Socket, Boolean> ());
+	
+	/**
+	 * Create a new SortServer listening on the given loopback port
+	 * @param service The SortService that sorts the requests
+	 * @param port The port to listen on or 0 for any free port
+	 * @throws IOException If the port cannot be bound
+	 */
+	public SortServer (SortService service, int port) throws IOException {
+		_service = service;
+		_server = new ServerSocket (port, 50, InetAddress.getLoopbackAddress ());
+		Thread acceptor = new Thread (new Runnable () {
+			public void run () {
+				accept ();
+			}
+		}, "SortServer acceptor");
+		acceptor.setDaemon (true);
+		acceptor.start ();
+	}
+	
+	/*
+	 * Accept connections until the server is closed
+	 */
+	private void accept () {
+		while (!_server.isClosed ()) {
+			Socket socket = null;
+			try {
+				socket = _server.accept ();
+				_sockets.add (socket);
+				_connections.execute (new Connection (_service, socket, _sockets));
+			} catch (IOException e) {
+				/* The server socket was closed */
+			} catch (RejectedExecutionException e) {
+				/* The server is closing */
+				_sockets.remove (socket);
+				close (socket);
+			}
+		}
+	}
+	
+	/**
+	 * Get the port the server listens on
+	 * @return The local port of the server
+	 */
+	public int port () {
+		return _server.getLocalPort ();
+	}
+	
+	/**
+	 * Stop accepting connections and close the open connections, the
+	 * SortService is left running.  Closing the socket of a connection ends
+	 * its thread even while it waits for the next request.
+	 * @throws IOException If the server socket fails to close
+	 */
+	public void close () throws IOException {
+		_server.close ();
+		_connections.shutdownNow ();
+		for (Socket socket : _sockets) {
+			close (socket);
+		}
+		_sockets.clear ();
+	}
+	
+}
@@ -0,0 +1,227 @@
+/*
+ * SortService.java - 
+ * Written By: Nicholas DiPasquale 
+ */
+package com.test.guisort.service;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import com.test.guisort.sorts.*;
+
+/**
+ * An in-process service that sorts arrays of long keys for many callers.
+ * Sorted keys are the same whatever algorithm sorts them, so small jobs are
+ * queued and a single batching thread sorts every queued job in one
+ * SegmentedSort call.  Large jobs are sorted by the parallel PrimitiveSort
+ * on the pool of the service.  The algorithm name of a job is checked, but as
+ * it cannot change the result every job runs on these primitive engines.
+ * The service keeps the depth of its queue and a histogram of the latency of
+ * each job.
+ * @author Nicholas DiPasquale
+ */
+public class SortService {
+
+	/** The algorithm name of the parallel primitive sort */
+	public static final String DEFAULT_ALGORITHM = SortAlgorithm.PrimitiveSort.name ();
+	
+	/* The largest job that is batched */
+	private static final int BATCH_THRESHOLD = 4096;
+	/* The most keys sorted in one batch */
+	private static final int MAX_BATCH_SIZE = 1 << 20;
+	
+	/**
+	 * A batched job, the caller waits on the job until the batching thread
+	 * has sorted its keys
+	 * @author Nicholas DiPasquale
+	 */
+	private static class Job {
+		/* The keys to sort in place */
+		private final long[] _keys;
+		/* Signalled once the keys are sorted */
+		private final CountDownLatch _done = new CountDownLatch (1);
+		/* The failure of the batch, if it failed */
+		private volatile RuntimeException _error;
+		
+		/**
+		 * Create a new Job for the given keys
+		 * @param keys The keys to sort in place
+		 */
+		public Job (long[] keys) {
+			_keys = keys;
+		}
+		
+	} /* END: class Job */
+	
+	/* The queue of batched jobs */
+	private final BlockingQueue<Job> _queue = new LinkedBlockingQueue<Job> ();
+	/* The number of jobs waiting or being sorted */
+	private final AtomicInteger _depth = new AtomicInteger ();
+	/* The latency of each job */
+	private final LatencyHistogram _latency = new LatencyHistogram ();
+	/* The pool of the parallel sorts */
+	private final ForkJoinPool _pool;
+	/* The batching thread */
+	private final Thread _batcher;
+	/* Flag set once the service is shut down */
+	private volatile boolean _shutdown;
+	
+	/**
+	 * Create a new SortService with a parallel sort thread for each processor
+	 */
+	public SortService () {
+		this (Runtime.getRuntime ().availableProcessors ());
+	}
+	/**
+	 * Create a new SortService with the given number of parallel sort threads
+	 * @param parallelism The number of parallel sort threads
+	 */
+	public SortService (int parallelism) {
+		_pool = new ForkJoinPool (parallelism);
+		_batcher = new Thread (new Runnable () {
+			public void run () {
+				batch ();
+			}
+		}, "SortService batcher");
+		_batcher.setDaemon (true);
+		_batcher.start ();
+	}
+	
+	/**
+	 * Sort the given keys in place with the default algorithm
+	 * @param keys The keys to sort
+	 * @return The sorted keys
+	 * @throws InterruptedException If the caller is interrupted while its job
+	 * is queued
+	 */
+	public long[] sort (long[] keys) throws InterruptedException {
+		return sort (DEFAULT_ALGORITHM, keys);
+	}
+	/**
+	 * Sort the given keys in place, small jobs are batched with the jobs of
+	 * other callers and large jobs are sorted by the parallel PrimitiveSort
+	 * @param algorithm The name of a SortAlgorithm
+	 * @param keys The keys to sort
+	 * @return The sorted keys
+	 * @throws IllegalArgumentException If the algorithm is not known
+	 * @throws IllegalStateException If the service is shut down
+	 * @throws InterruptedException If the caller is interrupted while its job
+	 * is queued, the job is taken off the queue unless the batching thread has
+	 * already taken it
+	 */
+	public long[] sort (String algorithm, long[] keys) throws InterruptedException {
+		SortAlgorithm.valueOf (algorithm);
+		if (_shutdown) {
+			throw new IllegalStateException ("The SortService is shut down");
+		}
+		
+		long start = System.nanoTime ();
+		_depth.incrementAndGet ();
+		try {
+			if (keys.length <= BATCH_THRESHOLD) {
+				Job job = new Job (keys);
+				_queue.add (job);
+				try {
+					while (!job._done.await (100L, TimeUnit.MILLISECONDS)) {
+						if (!_batcher.isAlive () && _queue.remove (job)) {
+							throw new IllegalStateException ("The SortService is shut down");
+						}
+					}
+				} catch (InterruptedException e) {
+					_queue.remove (job);
+					throw e;
+				}
+				if (job._error != null) {
+					throw job._error;
+				}
+			} else {
+				PrimitiveSort.parallelSort (keys, _pool);
+			}
+		} finally {
+			_depth.decrementAndGet ();
+		}
+		_latency.record (System.nanoTime () - start);
+		return keys;
+	}
+	
+	/*
+	 * Sort the queued jobs until the service is shut down, each batch takes
+	 * every queued job up to the batch size.  A batch that fails, even with an
+	 * Error such as running out of memory for its buffer, fails its jobs and
+	 * the batching thread goes on to the next batch.
+	 */
+	private void batch () {
+		List<Job> jobs = new ArrayList<Job> ();
+		while (!_shutdown) {
+			try {
+				jobs.add (_queue.take ());
+			} catch (InterruptedException e) {
+				break;
+			}
+			try {
+				int size = jobs.get (0)._keys.length;
+				Job job;
+				while (size < MAX_BATCH_SIZE && (job = _queue.poll ()) != null) {
+					jobs.add (job);
+					size += job._keys.length;
+				}
+				
+				long[] buffer = new long[size];
+				int[] offsets = new int[jobs.size () + 1];
+				for (int i = 0; i < jobs.size (); ++i) {
+					long[] keys = jobs.get (i)._keys;
+					System.arraycopy (keys, 0, buffer, offsets[i], keys.length);
+					offsets[i + 1] = offsets[i] + keys.length;
+				}
+				SegmentedSort.sort (buffer, offsets, (size > BATCH_THRESHOLD) ? _pool : null);
+				for (int i = 0; i < jobs.size (); ++i) {
+					long[] keys = jobs.get (i)._keys;
+					System.arraycopy (buffer, offsets[i], keys, 0, keys.length);
+				}
+			} catch (Throwable e) {
+				RuntimeException error = (e instanceof RuntimeException) ? (RuntimeException) e : new IllegalStateException ("The batch failed: " + e, e);
+				for (Job failed : jobs) {
+					failed._error = error;
+				}
+			} finally {
+				for (Job done : jobs) {
+					done._done.countDown ();
+				}
+				jobs.clear ();
+			}
+		}
+		
+		/* Fail the jobs left in the queue */
+		Job job;
+		while ((job = _queue.poll ()) != null) {
+			job._error = new IllegalStateException ("The SortService is shut down");
+			job._done.countDown ();
+		}
+	}
+	
+	/**
+	 * Get the depth of the queue
+	 * @return The number of jobs waiting or being sorted
+	 */
+	public int queueDepth () {
+		return _depth.get ();
+	}
+	
+	/**
+	 * Get the latency histogram of the jobs
+	 * @return The LatencyHistogram of the jobs sorted
+	 */
+	public LatencyHistogram latency () {
+		return _latency;
+	}
+	
+	/**
+	 * Shut down the service, the queued jobs that have not been sorted fail
+	 */
+	public void shutdown () {
+		_shutdown = true;
+		_batcher.interrupt ();
+		_pool.shutdown ();
+	}
+	
+}
@@ -0,0 +1,157 @@
+/*
+ * ServiceTest.java - 
+ * Written By: Nicholas DiPasquale 
+ */
+package com.test.guisort.service.testcase;
+
+import java.io.*;
+import java.net.*;
+import java.util.*;
+import junit.framework.*;
+import com.test.guisort.service.*;
+
+/**
+ * Test case class for the sort service
+ * @author Nicholas DiPasquale
+ */
+public class ServiceTest extends TestCase {
+
+	/*
+	 * Create an array of random keys
+	 * @param random The source of the keys
+	 * @param length The number of keys
+	 * @return The array of keys
+	 */
+	private static long[] keys (Random random, int length) {
+		long[] keys = new long[length];
+		for (int i = 0; i < length; ++i) {
+			keys[i] = random.nextLong ();
+		}
+		return keys;
+	}
+	
+	/**
+	 * Test case for small jobs from many threads that are batched together,
+	 * a large job on the parallel sort and a large job with another algorithm name
+	 */
+	public void test_SortService () throws Exception {
+		final SortService service = new SortService (2);
+		final Random random = new Random (45);
+		final List<Throwable> errors = Collections.synchronizedList (new ArrayList<Throwable> ());
+		Thread[] threads = new Thread[8];
+		for (int t = 0; t < threads.length; ++t) {
+			final long seed = random.nextLong ();
+			threads[t] = new Thread () {
+				public void run () {
+					Random keys = new Random (seed);
+					try {
+						for (int i = 0; i < 200; ++i) {
+							long[] data = keys (keys, 5 + keys.nextInt (500));
+							long[] expected = data.clone ();
+							Arrays.sort (expected);
+							if (!Arrays.equals (expected, service.sort (data))) {
+								errors.add (new AssertionError ("Unsorted batch job"));
+							}
+						}
+					} catch (Throwable e) {
+						errors.add (e);
+					}
+				}
+			};
+			threads[t].start ();
+		}
+		for (Thread thread : threads) {
+			thread.join ();
+		}
+		Assert.assertTrue (errors.toString (), errors.isEmpty ());
+		
+		long[] large = keys (random, 200000);
+		long[] expected = large.clone ();
+		Arrays.sort (expected);
+		Assert.assertTrue (Arrays.equals (expected, service.sort (large.clone ())));
+		Assert.assertTrue (Arrays.equals (expected, service.sort ("QuickSort", large.clone ())));
+		
+		try {
+			service.sort ("NoSuchSort", new long[1]);
+			Assert.fail ("Expected an IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+		}
+		
+		/* An interrupted caller gives up its job and the service goes on */
+		Thread.currentThread ().interrupt ();
+		try {
+			service.sort (keys (random, 10));
+			Assert.fail ("Expected an InterruptedException");
+		} catch (InterruptedException e) {
+		}
+		long[] small = keys (random, 10);
+		expected = small.clone ();
+		Arrays.sort (expected);
+		Assert.assertTrue (Arrays.equals (expected, service.sort (small)));
+		
+		Assert.assertEquals (0, service.queueDepth ());
+		Assert.assertEquals (threads.length * 200 + 3, service.latency ().count ());
+		Assert.assertTrue (service.latency ().percentile (50.0) <= service.latency ().percentile (99.0));
+		service.shutdown ();
+		try {
+			service.sort (new long[1]);
+			Assert.fail ("Expected an IllegalStateException");
+		} catch (IllegalStateException e) {
+		}
+	}
+	
+	/**
+	 * Test case for sorting over a loopback connection to a SortServer
+	 */
+	public void test_SortServer () throws Exception {
+		SortService service = new SortService (2);
+		SortServer server = new SortServer (service, 0);
+		SortClient client = new SortClient (server.port ());
+		Random random = new Random (45);
+		for (int length : new int[] { 0, 1, 100, 10000 }) {
+			long[] data = keys (random, length);
+			long[] expected = data.clone ();
+			Arrays.sort (expected);
+			Assert.assertTrue (Arrays.equals (expected, client.sort ("PrimitiveSort", data)));
+		}
+		try {
+			client.sort ("NoSuchSort", new long[1]);
+			Assert.fail ("Expected an IOException");
+		} catch (IOException e) {
+		}
+		Assert.assertTrue (Arrays.equals (new long[] { 1, 2, 3 }, client.sort ("MergeSort", new long[] { 3, 1, 2 })));
+		client.close ();
+		server.close ();
+		service.shutdown ();
+	}
+	
+	/**
+	 * Test case for closing a SortServer while a client connection is idle,
+	 * the connection must be closed rather than left waiting for a request
+	 */
+	public void test_SortServerClose () throws Exception {
+		SortService service = new SortService (1);
+		SortServer server = new SortServer (service, 0);
+		Socket socket = new Socket (InetAddress.getLoopbackAddress (), server.port ());
+		DataOutputStream out = new DataOutputStream (socket.getOutputStream ());
+		DataInputStream in = new DataInputStream (socket.getInputStream ());
+		out.writeUTF ("QuickSort");
+		out.writeInt (1);
+		out.writeLong (1L);
+		out.flush ();
+		Assert.assertEquals (SortServer.STATUS_OK, in.readByte ());
+		Assert.assertEquals (1, in.readInt ());
+		Assert.assertEquals (1L, in.readLong ());
+		
+		/* The idle connection is closed without another request */
+		server.close ();
+		socket.setSoTimeout (5000);
+		try {
+			Assert.assertEquals (-1, in.read ());
+		} catch (SocketException e) {
+		}
+		socket.close ();
+		service.shutdown ();
+	}
+	
+}
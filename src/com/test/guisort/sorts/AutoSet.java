@@ -0,0 +1,222 @@
+/*
+ * AutoSet.java - 
+ * Written By: Nicholas DiPasquale 
+ */
+package com.test.guisort.sorts;
+
+import java.util.*;
+
+/**
+ * A SortingSet that samples its data before each sort to estimate the size,
+ * presortedness, duplicate density and key range of the data and then sorts
+ * the data in place with the algorithm that suits it best.  The reason for
+ * the last choice is available from the AutoSet.
+ * @author Nicholas DiPasquale
+ * @param <T>
+ */
+public class AutoSet<T> extends SortingSet<T> {
+
+	/* The largest data set that is insertion sorted */
+	private static final int INSERTION_THRESHOLD = 32;
+	/* The smallest data set of Integers that is radix sorted */
+	private static final int RADIX_THRESHOLD = 256;
+	/* The widest key range that is radix sorted, three radix digits */
+	private static final long RADIX_RANGE = 1L << 24;
+	/* The largest number of sample windows taken from the data */
+	private static final int SAMPLE_WINDOWS = 8;
+	/* The number of consecutive items in each sample window */
+	private static final int SAMPLE_WINDOW_SIZE = 8;
+	/* The fraction of sampled descents under which the data is presorted */
+	private static final double PRESORTED_RATIO = 0.05;
+	/* The fraction of sampled duplicates over which duplicates are dense */
+	private static final double DUPLICATE_RATIO = 0.5;
+	
+	/* The reason for the last algorithm choice */
+	private String _reason;
+	/* The SortingSet running the current sort */
+	private volatile SortingSet<T> _delegate;
+	
+	/**
+	 * Create a new instance of an empty AutoSet
+	 */
+	public AutoSet () {
+		super ();
+	}
+	/**
+	 * Create a new instance of an AutoSet that initially contains the items in
+	 * the given Collection
+	 * @param collection A Collection of items to initially add to the AutoSet
+	 */
+	public AutoSet (Collection<T> collection) {
+		super (collection);
+	}
+	/**
+	 * Create a new instance of an AutoSet that has the given initial capacity
+	 * @param initialCapacity The initial capacity of the new AutoSet
+	 */
+	public AutoSet (int initialCapacity) {
+		super (initialCapacity);
+	}
+	
+	/**
+	 * Get the reason for the algorithm chosen by the last sort
+	 * @return The algorithm chosen and the measurements it was chosen on, or
+	 * null if the AutoSet has not chosen an algorithm
+	 */
+	public String reason () {
+		return _reason;
+	}
+	
+	/*
+	 * Sample the data and choose the algorithm to sort it with
+	 * @param length The length of the data to sort
+	 * @return The SortingSet that sorts the data list in place, or null if
+	 * the data is radix sorted by its Integer keys
+	 */
+	private SortingSet<T> choose (int length) {
+		if (length <= INSERTION_THRESHOLD) {
+			_reason = "InsertionSort: " + length + " items";
+			InsertionSet<T> set = new InsertionSet<T> (_list, _listeners);
+			set.binary (true);
+			return set;
+		}
+		
+		/* Count descents within and duplicates across the sample windows, short
+		 * data takes fewer windows so that no two windows overlap */
+		int windows = Math.min (SAMPLE_WINDOWS, length / SAMPLE_WINDOW_SIZE);
+		List<T> sample = new ArrayList<T> (windows * SAMPLE_WINDOW_SIZE);
+		int pairs = 0, descents = 0;
+		for (int w = 0; w < windows; ++w) {
+			int start = (int) ((long) (length - SAMPLE_WINDOW_SIZE) * w / (windows - 1));
+			for (int i = start; i < start + SAMPLE_WINDOW_SIZE; ++i) {
+				sample.add (_list.get (i));
+				if (i > start) {
+					++pairs;
+					if (compare (_list.get (i - 1), _list.get (i)) > 0) {
+						++descents;
+					}
+				}
+			}
+		}
+		InsertionSet<T> sorted = new InsertionSet<T> (sample, new LinkedList<ISortEventListener<T> > ());
+		InsertionSet.binaryinsertionsort (sorted, 0, sample.size ());
+		int duplicates = 0;
+		for (int i = 1; i < sample.size (); ++i) {
+			if (compare (sample.get (i - 1), sample.get (i)) == 0) {
+				++duplicates;
+			}
+		}
+		double descentRatio = (double) descents / (double) pairs;
+		double duplicateRatio = (double) duplicates / (double) (sample.size () - 1);
+		String measured = length + " items, " + Math.round (descentRatio * 100.0) + "% sampled descents, " + Math.round (duplicateRatio * 100.0) + "% sampled duplicates";
+		
+		if (descentRatio < PRESORTED_RATIO) {
+			_reason = "MergeSort: presorted, " + measured;
+			return new MergeSet<T> (_list, _listeners);
+		}
+		
+		/* The key range is measured over all of the data */
+		if (length >= RADIX_THRESHOLD) {
+			boolean bounded = true;
+			long min = Long.MAX_VALUE, max = Long.MIN_VALUE;
+			for (int i = 0; i < length && bounded; ++i) {
+				T item = _list.get (i);
+				if (item instanceof Integer) {
+					min = Math.min (min, ((Integer) item).longValue ());
+					max = Math.max (max, ((Integer) item).longValue ());
+					bounded = max - min < RADIX_RANGE;
+				} else {
+					bounded = false;
+				}
+			}
+			if (bounded) {
+				_reason = "RadixSort: Integer keys in a range of " + (max - min + 1) + ", " + measured;
+				return null;
+			}
+		}
+		
+		if (duplicateRatio > DUPLICATE_RATIO) {
+			_reason = "QuickSort: three way partitioning of dense duplicates, " + measured;
+		} else {
+			_reason = "QuickSort: " + measured;
+		}
+		return new QuickSet<T> (_list, _listeners);
+	}
+	
+	/**
+	 * @see com.test.guisort.sorts.SortingSet#sort(T[])
+	 */
+	public T[] sort (T[] array) {
+		if (_dirty) {
+			int length = Math.min (array.length, _list.size ());
+			SortingSet<T> set = choose (length);
+			if (set != null) {
+				set._unique = _unique;
+				set._cancellation = _cancellation;
+				_delegate = set;
+				array = set.sort (array);
+				_dirty = set._dirty;
+				_delegate = null;
+				return array;
+			}
+			checkpoint (this, 0.0);
+			Object[] items = KeySort.sort (_list.subList (0, length).toArray (), new IKeyExtractor<Object> () {
+				public long key (Object obj) {
+					return ((Integer) obj).longValue ();
+				}
+			});
+			/* Write back the items that moved so the listeners see the sort */
+			for (int i = 0; i < length; ++i) {
+				if (_list.get (i) != items[i]) {
+					_list.set (i, (T) items[i]);
+					fireEvent (this, SortEvent.Type.Write, i, i);
+				}
+			}
+			sorted (array.length);
+		}
+		return toSortedArray (array);
+	}
+	
+	/**
+	 * @see com.test.guisort.sorts.SortingSet#progress()
+	 */
+	public double progress () {
+		SortingSet<T> delegate = _delegate;
+		return (delegate != null) ? delegate.progress () : super.progress ();
+	}
+	
+	/**
+	 * @see com.test.guisort.sorts.SortingSet#getSortInformation()
+	 */
+	public String getSortInformation () {
+		String information = "Adaptive\nSamples the data to choose\nInsertion sort when tiny\nMerge sort when presorted\nRadix sort for Integer ranges\nQuick sort otherwise";
+		return (_reason != null) ? information + "\nLast: " + _reason : information;
+	}
+	
+	/**
+	 * Perform an adaptive sort on the given array of data
+	 * @param <T>
+	 * @param array The array of data to sort
+	 * @return The sorted data array
+	 */
+	public static <T> T[] autoSort (T[] array) {
+		return autoSort (array, null);
+	}
+	/**
+	 * Perform an adaptive sort on the given array of data with the specified
+	 * ISortEventListener
+	 * @param <T>
+	 * @param array The array of data to sort
+	 * @param listener The ISortEventListener to use while sorting
+	 * @return The sorted data array
+	 */
+	public static <T> T[] autoSort (T[] array, ISortEventListener<T> listener) {
+		AutoSet<T> set = new AutoSet<T> ();
+		if (listener != null) {
+			set.addSortEventListener (listener);
+		}
+		set.addAll (Arrays.asList (array));
+		return set.sort (array);
+	}
+	
+}
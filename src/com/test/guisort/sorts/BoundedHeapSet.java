@@ -0,0 +1,98 @@
+/*
+ * BoundedHeapSet.java - 
+ * Written By: Nicholas DiPasquale 
+ */
+package com.test.guisort.sorts;
+
+import java.util.*;
+
+/**
+ * A HeapSet with a fixed capacity that collects the smallest items of a
+ * stream of any length.  Once the BoundedHeapSet is full an item that is not
+ * less than the root of the heap is rejected with a single comparison, so
+ * the stream never has to be held in memory.  Only add, addAll, merge and
+ * sort are synchronized: several threads may offer items to one
+ * BoundedHeapSet, or fill collectors of their own that are merged together,
+ * but the other methods must not be called while items are being offered.
+ * @author Nicholas DiPasquale
+ * @param <T>
+ */
+public class BoundedHeapSet<T> extends HeapSet<T> {
+
+	/* The most items the BoundedHeapSet holds */
+	private final int _capacity;
+	
+	/**
+	 * Create a new instance of an empty BoundedHeapSet
+	 * @param capacity The most items the BoundedHeapSet holds
+	 * @throws IllegalArgumentException If the capacity is negative
+	 */
+	public BoundedHeapSet (int capacity) {
+		super (capacity);
+		_capacity = capacity;
+	}
+	
+	/**
+	 * Get the capacity of the BoundedHeapSet
+	 * @return The most items the BoundedHeapSet holds
+	 */
+	public int capacity () {
+		return _capacity;
+	}
+	
+	/**
+	 * Offers the given object to the BoundedHeapSet, once it is full the
+	 * object replaces the greatest item only if it is less than that item
+	 * @param obj The object to offer to the BoundedHeapSet
+	 * @return If the object was kept
+	 * @see java.util.Set#add (E)
+	 */
+	public synchronized boolean add (T obj) {
+		return HeapSet.offer (this, obj, _capacity);
+	}
+	
+	/**
+	 * Offers each of the items in the given Collection to the BoundedHeapSet
+	 * @param collection The collection of items to offer
+	 * @return If any of the items were kept
+	 * @see java.util.Set#addAll (java.util.Collection)
+	 */
+	public synchronized boolean addAll (Collection<? extends T> collection) {
+		boolean result = false;
+		for (T obj : collection) {
+			result |= HeapSet.offer (this, obj, _capacity);
+		}
+		return result;
+	}
+	
+	/**
+	 * Merges the items collected by another BoundedHeapSet into this one, the
+	 * other BoundedHeapSet is not changed
+	 * @param other The BoundedHeapSet to merge into this one
+	 * @return If any of the items were kept
+	 */
+	public boolean merge (BoundedHeapSet<? extends T> other) {
+		List<T> items;
+		synchronized (other) {
+			items = new ArrayList<T> (other._list);
+		}
+		return addAll (items);
+	}
+	
+	/**
+	 * Sorts a snapshot of the collected items into the given array, the
+	 * BoundedHeapSet keeps collecting afterwards
+	 * @see com.test.guisort.sorts.HeapSet#sort(T[])
+	 */
+	public synchronized T[] sort (T[] array) {
+		return super.sort (array);
+	}
+	
+	/**
+	 * @see com.test.guisort.sorts.SortingSet#getSortInformation()
+	 */
+	public String getSortInformation () {
+		return "Transformation\nBest Case: O(n)\nAverage Case: O(n log k)\nWorst Case: O(n log k)\nMemory Usage: O(k)\nUnstable\nwhere k is the capacity";
+	}
+	
+}
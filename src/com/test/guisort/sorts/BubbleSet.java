@@ -43,7 +43,10 @@ public class BubbleSet<T> extends SortingSet<T> {
 	 * @param right The right side offset for the sort
 	 */
 	private static <T> void bubblesort (BubbleSet<T> set, int left, int right) {
+		double length = right - left;
 		for (int i = left; i < right; ++i) {
+			double remaining = (right - i) / length;
+			checkpoint (set, 1.0 - remaining * remaining);
 			for (int j = right - 1; j > i; --j) {
 				if (((Comparable<? super T>) set._list.get (j)).compareTo (set._list.get (j - 1)) < 0) {
 					Collections.swap (set._list, j, j - 1);
@@ -57,8 +60,11 @@ public class BubbleSet<T> extends SortingSet<T> {
 	 * @see com.test.guisort.sorts.SortingSet#sort(T[])
 	 */
 	public T[] sort (T[] array) {
-        bubblesort (this, 0, array.length);
-		return toArray (array);
+		if (_dirty) {
+			bubblesort (this, 0, array.length);
+			sorted (array.length);
+		}
+		return toSortedArray (array);
 	}
 	
 	/**
@@ -0,0 +1,59 @@
+/*
+ * CancellationToken.java - 
+ * Written By: Nicholas DiPasquale 
+ */
+package com.test.guisort.sorts;
+
+import java.util.concurrent.*;
+
+/**
+ * A token that asks a running sort to stop.  A SortingSet checks its token
+ * at coarse points of each algorithm, such as each partition, merge or pass,
+ * and throws a CancellationException once the token is cancelled or its
+ * deadline has passed.  A token may be shared by any number of sorts and
+ * cancelled from any thread.
+ * @author Nicholas DiPasquale
+ */
+public class CancellationToken {
+
+	/* Flag set once the token is cancelled */
+	private volatile boolean _cancelled;
+	/* The System.nanoTime of the deadline */
+	private final long _deadline;
+	/* Flag set if the token has a deadline */
+	private final boolean _hasDeadline;
+	
+	/**
+	 * Create a new CancellationToken without a deadline
+	 */
+	public CancellationToken () {
+		_deadline = 0L;
+		_hasDeadline = false;
+	}
+	/**
+	 * Create a new CancellationToken that is cancelled once the given timeout
+	 * has passed
+	 * @param timeout The time until the deadline
+	 * @param unit The TimeUnit of the timeout
+	 */
+	public CancellationToken (long timeout, TimeUnit unit) {
+		_deadline = System.nanoTime () + unit.toNanos (timeout);
+		_hasDeadline = true;
+	}
+	
+	/**
+	 * Cancel the sorts that check the token
+	 */
+	public void cancel () {
+		_cancelled = true;
+	}
+	
+	/**
+	 * Determines if the token is cancelled or past its deadline
+	 * @return If the sorts that check the token should stop
+	 */
+	public boolean isCancelled () {
+		return _cancelled || (_hasDeadline && System.nanoTime () - _deadline >= 0L);
+	}
+	
+}
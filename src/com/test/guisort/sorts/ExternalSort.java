@@ -0,0 +1,504 @@
+/*
+ * ExternalSort.java - 
+ * Written By: Nicholas DiPasquale 
+ */
+package com.test.guisort.sorts;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * An external merge sort of a file of keys that is too large to sort in
+ * memory.  The input is a file of big-endian longs, as written by a
+ * DataOutputStream.  The run generation phase reads the input a run at a
+ * time, sorts each run with a MergeSet and writes it to a run file in the
+ * work directory.  The merge phase then merges up to the fan-in runs at a
+ * time into the runs of the next generation until a single run remains,
+ * which becomes the output file.
+ * <p>
+ * The sort works in steps, a step writes one run or merges up to one run
+ * size of keys, and each step ends by writing a manifest of the completed
+ * runs, the merge progress and the input offsets to the work directory.  A
+ * new ExternalSort on the same work directory resumes from the manifest, so
+ * a sort that is killed loses at most the step that was running.  The
+ * manifest records the length and modification time of the input and the
+ * output file.  A sort whose input has changed since, or that writes another
+ * output, discards the runs of the manifest and starts over.
+ * @author Nicholas DiPasquale
+ */
+public class ExternalSort {
+	
+	/** The name of the manifest file in the work directory */
+	public static final String MANIFEST = "manifest.properties";
+	/** The default number of runs merged at once */
+	public static final int DEFAULT_FAN_IN = 8;
+	
+	/* The size in bytes of each key */
+	private static final int KEY_SIZE = 8;
+	/* The phase that writes the sorted runs of the input */
+	private static final String PHASE_RUNS = "runs";
+	/* The phase that merges the runs */
+	private static final String PHASE_MERGE = "merge";
+	/* The phase after the output is written */
+	private static final String PHASE_DONE = "done";
+	
+	/* The file of keys to sort */
+	private final File _input;
+	/* The file of sorted keys */
+	private final File _output;
+	/* The length of the input when the sort started */
+	private final long _inputLength;
+	/* The modification time of the input when the sort started */
+	private final long _inputModified;
+	/* The directory of the run files and the manifest */
+	private final File _directory;
+	/* The number of keys in each run */
+	private int _runSize;
+	/* The number of runs merged at once */
+	private int _fanIn;
+	/* The current phase of the sort */
+	private String _phase;
+	/* The number of keys of the input written to runs */
+	private long _inputOffset;
+	/* The generation of the runs being merged */
+	private int _generation;
+	/* The completed runs of the current generation */
+	private List<String> _runs;
+	/* The completed runs of the next generation */
+	private List<String> _merged;
+	/* The number of keys written to the run being merged */
+	private long _written;
+	/* The number of keys read from each run being merged */
+	private long[] _offsets;
+	
+	/**
+	 * Create a new ExternalSort of the given input file, resuming from the
+	 * manifest of the work directory if there is one
+	 * @param input The file of keys to sort
+	 * @param output The file to write the sorted keys
+	 * @param directory The work directory of the run files and manifest
+	 * @param runSize The number of keys sorted in memory for each run
+	 * @throws IOException If the manifest cannot be read or belongs to
+	 * another input
+	 */
+	public ExternalSort (File input, File output, File directory, int runSize) throws IOException {
+		this (input, output, directory, runSize, DEFAULT_FAN_IN);
+	}
+	/**
+	 * Create a new ExternalSort of the given input file, resuming from the
+	 * manifest of the work directory if there is one.  A resumed sort keeps
+	 * the run size and fan-in of the manifest.
+	 * @param input The file of keys to sort
+	 * @param output The file to write the sorted keys
+	 * @param directory The work directory of the run files and manifest
+	 * @param runSize The number of keys sorted in memory for each run
+	 * @param fanIn The number of runs merged at once
+	 * @throws IllegalArgumentException If the run size is less than one or
+	 * the fan-in is less than two
+	 * @throws IOException If the manifest cannot be read or belongs to
+	 * another input
+	 */
+	public ExternalSort (File input, File output, File directory, int runSize, int fanIn) throws IOException {
+		if (runSize < 1) {
+			throw new IllegalArgumentException ("Run size must be positive: " + runSize);
+		}
+		if (fanIn < 2) {
+			throw new IllegalArgumentException ("Fan-in must be at least two: " + fanIn);
+		}
+		_input = input;
+		_output = output;
+		_inputLength = input.length ();
+		_inputModified = input.lastModified ();
+		_directory = directory;
+		_runSize = runSize;
+		_fanIn = fanIn;
+		_phase = PHASE_RUNS;
+		_runs = new ArrayList<String> ();
+		_merged = new ArrayList<String> ();
+		_offsets = new long[fanIn];
+		
+		if (!directory.isDirectory () && !directory.mkdirs ()) {
+			throw new IOException ("Cannot create the work directory " + directory);
+		}
+		File manifest = new File (directory, MANIFEST);
+		if (manifest.exists ()) {
+			load (manifest);
+		}
+	}
+	
+	/*
+	 * Read the state of the sort from the manifest, a stale manifest is
+	 * discarded and the sort starts over
+	 * @param manifest The manifest file
+	 * @throws IOException If the manifest cannot be read or belongs to
+	 * another input
+	 */
+	private void load (File manifest) throws IOException {
+		Properties properties = new Properties ();
+		InputStream in = new FileInputStream (manifest);
+		try {
+			properties.load (in);
+		} finally {
+			in.close ();
+		}
+		if (!_input.getAbsolutePath ().equals (properties.getProperty ("input"))) {
+			throw new IOException ("The manifest " + manifest + " belongs to " + properties.getProperty ("input"));
+		}
+		if (stale (properties)) {
+			discard (manifest);
+			return;
+		}
+		_runSize = Integer.parseInt (properties.getProperty ("runSize"));
+		_fanIn = Integer.parseInt (properties.getProperty ("fanIn"));
+		_phase = properties.getProperty ("phase");
+		_inputOffset = Long.parseLong (properties.getProperty ("inputOffset"));
+		_generation = Integer.parseInt (properties.getProperty ("generation"));
+		_runs = split (properties.getProperty ("runs"));
+		_merged = split (properties.getProperty ("merged"));
+		_written = Long.parseLong (properties.getProperty ("written"));
+		_offsets = new long[_fanIn];
+		List<String> offsets = split (properties.getProperty ("offsets"));
+		for (int i = 0; i < offsets.size (); ++i) {
+			_offsets[i] = Long.parseLong (offsets.get (i));
+		}
+	}
+	
+	/*
+	 * Check if the runs of a manifest were written for an older version of
+	 * the input or for another output, or if its finished output is gone
+	 * @param properties The properties of the manifest
+	 * @return If the manifest is stale
+	 */
+	private boolean stale (Properties properties) {
+		if (!Long.toString (_inputLength).equals (properties.getProperty ("inputLength"))) {
+			return true;
+		}
+		if (!Long.toString (_inputModified).equals (properties.getProperty ("inputModified"))) {
+			return true;
+		}
+		if (!_output.getAbsolutePath ().equals (properties.getProperty ("output"))) {
+			return true;
+		}
+		return PHASE_DONE.equals (properties.getProperty ("phase")) && !_output.exists ();
+	}
+	/*
+	 * Delete the run files and the manifest of a stale sort, so the sort
+	 * starts over
+	 * @param manifest The manifest file
+	 * @throws IOException If the manifest cannot be deleted
+	 */
+	private void discard (File manifest) throws IOException {
+		File[] files = _directory.listFiles ();
+		if (files != null) {
+			for (File file : files) {
+				if (file.getName ().startsWith ("run-") && file.getName ().endsWith (".bin")) {
+					file.delete ();
+				}
+			}
+		}
+		if (!manifest.delete ()) {
+			throw new IOException ("Cannot delete the stale manifest " + manifest);
+		}
+	}
+	
+	/*
+	 * Write the state of the sort to the manifest.  The manifest is written
+	 * to a temporary file, synced and moved over the old manifest, so a kill
+	 * leaves either the old or the new manifest.  The files of the step are
+	 * synced before the manifest, so the manifest never names keys that are
+	 * not on the disk.
+	 * @throws IOException If the manifest cannot be written
+	 */
+	private void checkpoint () throws IOException {
+		Properties properties = new Properties ();
+		properties.setProperty ("input", _input.getAbsolutePath ());
+		properties.setProperty ("inputLength", Long.toString (_inputLength));
+		properties.setProperty ("inputModified", Long.toString (_inputModified));
+		properties.setProperty ("output", _output.getAbsolutePath ());
+		properties.setProperty ("runSize", Integer.toString (_runSize));
+		properties.setProperty ("fanIn", Integer.toString (_fanIn));
+		properties.setProperty ("phase", _phase);
+		properties.setProperty ("inputOffset", Long.toString (_inputOffset));
+		properties.setProperty ("generation", Integer.toString (_generation));
+		properties.setProperty ("runs", join (_runs));
+		properties.setProperty ("merged", join (_merged));
+		properties.setProperty ("written", Long.toString (_written));
+		List<String> offsets = new ArrayList<String> (_offsets.length);
+		for (long offset : _offsets) {
+			offsets.add (Long.toString (offset));
+		}
+		properties.setProperty ("offsets", join (offsets));
+		
+		File temporary = new File (_directory, MANIFEST + ".tmp");
+		FileOutputStream out = new FileOutputStream (temporary);
+		try {
+			properties.store (out, "ExternalSort checkpoint");
+			out.getFD ().sync ();
+		} finally {
+			out.close ();
+		}
+		Files.move (temporary.toPath (), new File (_directory, MANIFEST).toPath (), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+	
+	/*
+	 * Join a list of names into a comma separated String
+	 * @param names The names to join
+	 * @return The comma separated names
+	 */
+	private static String join (List<String> names) {
+		StringBuilder builder = new StringBuilder ();
+		for (String name : names) {
+			if (builder.length () > 0) {
+				builder.append (',');
+			}
+			builder.append (name);
+		}
+		return builder.toString ();
+	}
+	/*
+	 * Split a comma separated String into a list of names
+	 * @param names The comma separated names
+	 * @return The list of names
+	 */
+	private static List<String> split (String names) {
+		List<String> list = new ArrayList<String> ();
+		if (names != null && names.length () > 0) {
+			list.addAll (Arrays.asList (names.split (",")));
+		}
+		return list;
+	}
+	
+	/*
+	 * Open a file of keys for reading from the given key
+	 * @param file The file of keys
+	 * @param offset The number of keys to skip
+	 * @return The DataInputStream positioned at the key
+	 * @throws IOException If the file cannot be read
+	 */
+	private static DataInputStream open (File file, long offset) throws IOException {
+		FileInputStream in = new FileInputStream (file);
+		try {
+			in.getChannel ().position (offset * KEY_SIZE);
+		} catch (IOException e) {
+			in.close ();
+			throw e;
+		}
+		return new DataInputStream (new BufferedInputStream (in));
+	}
+	
+	/*
+	 * The name of a run file
+	 * @param generation The generation of the run
+	 * @param index The index of the run in its generation
+	 * @return The name of the run file
+	 */
+	private static String runName (int generation, int index) {
+		return "run-" + generation + "-" + index + ".bin";
+	}
+	
+	/*
+	 * Sort the next run of the input with a MergeSet and write it to a run
+	 * file, starting the merge phase once the input is exhausted
+	 * @throws IOException If the input or run file fails
+	 */
+	private void generate () throws IOException {
+		long length = _input.length () / KEY_SIZE;
+		if (_inputOffset < length) {
+			int count = (int) Math.min ((long) _runSize, length - _inputOffset);
+			List<Long> keys = new ArrayList<Long> (count);
+			DataInputStream in = open (_input, _inputOffset);
+			try {
+				for (int i = 0; i < count; ++i) {
+					keys.add (Long.valueOf (in.readLong ()));
+				}
+			} finally {
+				in.close ();
+			}
+			MergeSet<Long> set = new MergeSet<Long> (count);
+			set.addAll (keys);
+			Long[] sorted = set.sort (new Long[count]);
+			
+			String name = runName (0, _runs.size ());
+			FileOutputStream stream = new FileOutputStream (new File (_directory, name));
+			DataOutputStream out = new DataOutputStream (new BufferedOutputStream (stream));
+			try {
+				for (Long key : sorted) {
+					out.writeLong (key.longValue ());
+				}
+				out.flush ();
+				stream.getFD ().sync ();
+			} finally {
+				out.close ();
+			}
+			_runs.add (name);
+			_inputOffset += count;
+		}
+		if (_inputOffset >= length) {
+			_phase = PHASE_MERGE;
+			if (_runs.size () <= 1) {
+				finish ();
+				return;
+			}
+		}
+		checkpoint ();
+	}
+	
+	/*
+	 * Merge up to one run size of keys from the current group of runs into
+	 * the run of the next generation, starting the next generation once each
+	 * group is merged
+	 * @throws IOException If a run file fails
+	 */
+	private void merge () throws IOException {
+		int group = _merged.size ();
+		int from = group * _fanIn, to = Math.min (from + _fanIn, _runs.size ());
+		if (from >= _runs.size ()) {
+			List<String> previous = _runs;
+			_runs = _merged;
+			_merged = new ArrayList<String> ();
+			++_generation;
+			if (_runs.size () <= 1) {
+				finish ();
+			} else {
+				checkpoint ();
+			}
+			delete (previous);
+			return;
+		}
+		
+		int ways = to - from;
+		DataInputStream[] inputs = new DataInputStream[ways];
+		long[] lengths = new long[ways];
+		long[] heads = new long[ways];
+		File target = new File (_directory, runName (_generation + 1, group));
+		/* Drop any keys written after the last checkpoint */
+		RandomAccessFile file = new RandomAccessFile (target, "rw");
+		try {
+			file.setLength (_written * KEY_SIZE);
+		} finally {
+			file.close ();
+		}
+		FileOutputStream stream = new FileOutputStream (target, true);
+		DataOutputStream out = new DataOutputStream (new BufferedOutputStream (stream));
+		try {
+			for (int i = 0; i < ways; ++i) {
+				File run = new File (_directory, _runs.get (from + i));
+				lengths[i] = run.length () / KEY_SIZE;
+				inputs[i] = open (run, _offsets[i]);
+				if (_offsets[i] < lengths[i]) {
+					heads[i] = inputs[i].readLong ();
+				}
+			}
+			for (int count = 0; count < _runSize; ++count) {
+				int min = -1;
+				for (int i = 0; i < ways; ++i) {
+					if (_offsets[i] < lengths[i] && (min < 0 || heads[i] < heads[min])) {
+						min = i;
+					}
+				}
+				if (min < 0) {
+					break;
+				}
+				out.writeLong (heads[min]);
+				++_written;
+				if (++_offsets[min] < lengths[min]) {
+					heads[min] = inputs[min].readLong ();
+				}
+			}
+			out.flush ();
+			stream.getFD ().sync ();
+		} finally {
+			out.close ();
+			for (DataInputStream in : inputs) {
+				if (in != null) {
+					in.close ();
+				}
+			}
+		}
+		
+		boolean exhausted = true;
+		for (int i = 0; i < ways; ++i) {
+			exhausted &= _offsets[i] >= lengths[i];
+		}
+		if (exhausted) {
+			_merged.add (target.getName ());
+			_written = 0;
+			Arrays.fill (_offsets, 0L);
+		}
+		checkpoint ();
+	}
+	
+	/*
+	 * Move the last remaining run to the output file, or write an empty
+	 * output for an empty input
+	 * @throws IOException If the output cannot be written
+	 */
+	private void finish () throws IOException {
+		File run = _runs.isEmpty () ? null : new File (_directory, _runs.get (0));
+		if (run == null) {
+			new FileOutputStream (_output).close ();
+		} else if (run.exists ()) {
+			Files.move (run.toPath (), _output.toPath (), StandardCopyOption.REPLACE_EXISTING);
+		}
+		_phase = PHASE_DONE;
+		_runs.clear ();
+		checkpoint ();
+	}
+	
+	/*
+	 * Delete the given run files from the work directory
+	 * @param runs The names of the run files
+	 */
+	private void delete (List<String> runs) {
+		for (String name : runs) {
+			new File (_directory, name).delete ();
+		}
+	}
+	
+	/**
+	 * Perform the next step of the sort: sort and write one run, or merge up
+	 * to one run size of keys, then write the manifest
+	 * @return If the sort has more steps to perform
+	 * @throws IOException If a file of the sort fails
+	 */
+	public boolean step () throws IOException {
+		if (PHASE_RUNS.equals (_phase)) {
+			generate ();
+		} else if (PHASE_MERGE.equals (_phase)) {
+			merge ();
+		}
+		return !done ();
+	}
+	
+	/**
+	 * Perform the remaining steps of the sort
+	 * @throws IOException If a file of the sort fails
+	 */
+	public void sort () throws IOException {
+		while (step ()) {
+		}
+	}
+	
+	/**
+	 * Determines if the sort has written its output
+	 * @return If the sort is complete
+	 */
+	public boolean done () {
+		return PHASE_DONE.equals (_phase);
+	}
+	
+	/**
+	 * Sort the given file of keys, resuming from the manifest of the work
+	 * directory if there is one
+	 * @param input The file of keys to sort
+	 * @param output The file to write the sorted keys
+	 * @param directory The work directory of the run files and manifest
+	 * @param runSize The number of keys sorted in memory for each run
+	 * @throws IOException If a file of the sort fails
+	 */
+	public static void sort (File input, File output, File directory, int runSize) throws IOException {
+		new ExternalSort (input, output, directory, runSize).sort ();
+	}
+	
+}
@@ -13,6 +13,9 @@ import java.util.*;
  */
 public class HeapSet<T> extends SortingSet<T> {
 
+	/* The number of items sifted up into the heap between checkpoints */
+	private static final int HEAPIFY_BLOCK_SIZE = 1024;
+	
 	/**
 	 * Create a new instance of a HeapSet
 	 */
@@ -50,6 +53,7 @@ public class HeapSet<T> extends SortingSet<T> {
 	public boolean add (T obj) {
 		boolean result = _list.add (obj);
 		HeapSet.siftUp (this, _list.size () - 1);
+		_dirty = _list.size () > 1;
 		return result;
 	}
 
@@ -74,6 +78,7 @@ public class HeapSet<T> extends SortingSet<T> {
 	public boolean addAll (Collection<? extends T> collection) {
 		boolean result = _list.addAll (collection);
 		HeapSet.heapify (this);
+		_dirty = _list.size () > 1;
 		return result;
 	}
 
@@ -84,7 +89,7 @@ public class HeapSet<T> extends SortingSet<T> {
 	 * @see java.util.Set#retainAll (java.util.Collection)
 	 */
 	public boolean retainAll (Collection<?> collection) {
-		boolean result = _list.retainAll (collection);
+		boolean result = super.retainAll (collection);
 		HeapSet.heapify (this);
 		return result;
 	}
@@ -96,11 +101,36 @@ public class HeapSet<T> extends SortingSet<T> {
 	 * @see java.util.Set#removeAll (java.util.Collection)
 	 */
 	public boolean removeAll (Collection<?> collection) {
-		boolean result = _list.removeAll (collection);
+		boolean result = super.removeAll (collection);
 		HeapSet.heapify (this);
 		return result;
 	}
 
+	/**
+	 * A HeapSet keeps its data in heap order so it can not maintain its data
+	 * in sorted order
+	 * @param maintain The status of the maintain sorted flag
+	 * @throws UnsupportedOperationException If the flag is set
+	 * @see com.test.guisort.sorts.SortingSet#maintainSorted(boolean)
+	 */
+	public void maintainSorted (boolean maintain) {
+		if (maintain) {
+			throw new UnsupportedOperationException ("A HeapSet is kept in heap order");
+		}
+	}
+
+	/**
+	 * A HeapSet keeps its data in heap order so it can not be sorted in place
+	 * for the sorted order queries
+	 * @throws UnsupportedOperationException If the HeapSet is not sorted
+	 * @see com.test.guisort.sorts.SortingSet#ensureSorted()
+	 */
+	protected void ensureSorted () {
+		if (_dirty) {
+			throw new UnsupportedOperationException ("A HeapSet is kept in heap order");
+		}
+	}
+
 	/*
 	 * Performs the standard sift down operatin on a HeapSet
 	 * @param <T>
@@ -156,6 +186,89 @@ public class HeapSet<T> extends SortingSet<T> {
 		}
 	}
 	
+	/*
+	 * Sorts a HeapSet in place by repeatedly moving the root of the heap to
+	 * the end of the shrinking heap
+	 * @param <T>
+	 * @param heap The HeapSet to sort
+	 * @param owner The SortingSet that records the progress of the sort and
+	 * holds its CancellationToken
+	 */
+	private static <T> void extract (HeapSet<T> heap, SortingSet<T> owner) {
+		double length = heap.size ();
+		for (int end = heap.size () - 1; end > 0; --end) {
+			checkpoint (owner, (length - 1 - end) / length);
+			Collections.swap (heap._list, 0, end);
+			HeapSet.fireEvent (heap, 0, end);
+			siftDown (heap, 0, end);
+		}
+	}
+	
+	/*
+	 * Builds a heap of the k smallest items of the given list.  The heap is
+	 * never larger than k so each item that is not less than the root is
+	 * rejected with a single comparison.
+	 * @param <T>
+	 * @param list The items to select from
+	 * @param k The number of items to keep
+	 * @param listeners The listeners of the new HeapSet
+	 * @return The bounded HeapSet of the k smallest items
+	 */
+	private static <T> HeapSet<T> bounded (List<T> list, int k, List<ISortEventListener<T> > listeners) {
+		HeapSet<T> heap = new HeapSet<T> (new ArrayList<T> (k), listeners);
+		for (T item : list) {
+			offer (heap, item, k);
+		}
+		return heap;
+	}
+	
+	/*
+	 * Offers an item to a heap that is bounded to the given number of items,
+	 * once the heap is full an item that is less than the root replaces it
+	 * @param <T>
+	 * @param heap The bounded HeapSet to offer the item to
+	 * @param item The item to offer
+	 * @param k The most items the heap may hold
+	 * @return If the item was kept in the heap
+	 */
+	static <T> boolean offer (HeapSet<T> heap, T item, int k) {
+		if (heap._list.size () < k) {
+			heap._list.add (item);
+			siftUp (heap, heap._list.size () - 1);
+		} else if (k > 0 && compare (item, heap._list.get (0)) < 0) {
+			heap._list.set (0, item);
+			HeapSet.fireEvent (heap, SortEvent.Type.Write, 0, 0);
+			siftDown (heap, 0, k);
+		} else {
+			return false;
+		}
+		heap._dirty = heap._list.size () > 1;
+		return true;
+	}
+	
+	/**
+	 * Select the item of the given rank using a heap bounded to k + 1 items
+	 * in O(n log k) time
+	 * @see com.test.guisort.sorts.SortingSet#select(int)
+	 */
+	public T select (int k) {
+		if (k < 0 || k >= _list.size ()) {
+			throw new IndexOutOfBoundsException ("Index: " + k + ", Size: " + _list.size ());
+		}
+		return bounded (_list, k + 1, _listeners)._list.get (0);
+	}
+	
+	/**
+	 * Sort only the k smallest items using a heap bounded to k items in
+	 * O(n log k) time, which suits a small k
+	 * @see com.test.guisort.sorts.SortingSet#partialSort(int, T[])
+	 */
+	public T[] partialSort (int k, T[] array) {
+		HeapSet<T> heap = bounded (_list, Math.min (k, _list.size ()), _listeners);
+		extract (heap, this);
+		return heap.toArray (array);
+	}
+	
 	/**
 	 * Sorts the contents of a HeapSet into the given array
 	 * @param array The array to sort the HeapSet into
@@ -164,16 +277,22 @@ public class HeapSet<T> extends SortingSet<T> {
 	 */
 	public T[] sort (T[] array) {
 		HeapSet<T> heap = new HeapSet<T> (new ArrayList<T> (_list), _listeners);
-		int start = 0;
-		for (++start; start <= heap.size () - 2; ++start) {
-			siftUp (heap, start);
+		int start = 1;
+		while (start <= heap.size () - 2) {
+			checkpoint (this, 0.0);
+			int end = Math.min (start + HEAPIFY_BLOCK_SIZE, heap.size () - 1);
+			for (; start < end; ++start) {
+				siftUp (heap, start);
+			}
 		}
-		for (int end = heap.size () - 1; end > 0; --end) {
-			Collections.swap (heap._list, 0, end);
-			HeapSet.fireEvent (heap, 0, end);
-			siftDown (heap, 0, end);
+		checkpoint (this, 0.0);
+		extract (heap, this);
+		_progress = 1.0;
+		if (_unique) {
+			heap._unique = true;
+			heap.dedupe ();
 		}
-		return heap.toArray (array);
+		return heap.toSortedArray (array);
 	}
 	
 	/**
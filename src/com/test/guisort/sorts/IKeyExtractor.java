@@ -0,0 +1,22 @@
+/*
+ * IKeyExtractor.java - 
+ * Written By: Nicholas DiPasquale 
+ */
+package com.test.guisort.sorts;
+
+/**
+ * A generic interface that extracts a primitive sort key from an item, items
+ * are sorted in the order of their keys
+ * @author Nicholas DiPasquale
+ * @param <T>
+ */
+public interface IKeyExtractor<T> {
+
+	/**
+	 * Called once per item to get its sort key
+	 * @param obj The item to get the key of
+	 * @return The sort key of the item
+	 */
+	public long key (T obj);
+	
+}
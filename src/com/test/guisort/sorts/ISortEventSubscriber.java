@@ -0,0 +1,43 @@
+/*
+ * ISortEventSubscriber.java - 
+ * Written By: Nicholas DiPasquale 
+ */
+package com.test.guisort.sorts;
+
+/**
+ * A subscriber to the sort events of a SortEventPublisher.  The events are
+ * delivered as batches of three ints per event, the ordinal of its
+ * SortEvent.Type followed by its two indices, one batch for each unit of
+ * demand requested through the ISortEventSubscription.  The methods are
+ * called in order from one thread at a time.
+ * @author Nicholas DiPasquale
+ */
+public interface ISortEventSubscriber {
+
+	/**
+	 * Called once before any other method with the subscription used to
+	 * request batches
+	 * @param subscription The ISortEventSubscription of the subscriber
+	 */
+	public void onSubscribe (ISortEventSubscription subscription);
+	
+	/**
+	 * Called with each batch of events, event i has the type
+	 * SortEvent.Type.values ()[events[3 * i]] and the indices
+	 * events[3 * i + 1] and events[3 * i + 2]
+	 * @param events The type, index0 and index1 of each event in turn
+	 */
+	public void onNext (int[] events);
+	
+	/**
+	 * Called once if the subscription fails, no more methods are called
+	 * @param throwable The cause of the failure
+	 */
+	public void onError (Throwable throwable);
+	
+	/**
+	 * Called once after the last batch of a closed publisher
+	 */
+	public void onComplete ();
+	
+}
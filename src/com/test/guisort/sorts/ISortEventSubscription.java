@@ -0,0 +1,25 @@
+/*
+ * ISortEventSubscription.java - 
+ * Written By: Nicholas DiPasquale 
+ */
+package com.test.guisort.sorts;
+
+/**
+ * The link between a SortEventPublisher and one ISortEventSubscriber, the
+ * subscriber signals its demand for batches of events through it
+ * @author Nicholas DiPasquale
+ */
+public interface ISortEventSubscription {
+
+	/**
+	 * Request more batches of events
+	 * @param n The number of batches to add to the demand, greater than 0
+	 */
+	public void request (long n);
+	
+	/**
+	 * Stop receiving events, events already buffered are discarded
+	 */
+	public void cancel ();
+	
+}
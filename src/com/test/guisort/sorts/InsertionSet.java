@@ -14,6 +14,12 @@ import java.util.*;
  */
 public class InsertionSet<T> extends SortingSet<T> {
 
+	/* The number of items binary inserted between cancellation checks */
+	private static final int BINARY_BLOCK_SIZE = 256;
+	
+	/* Flag to find the insertion point with a binary search */
+	private boolean _binary;
+	
 	/**
 	 * Create a new instance of an empty InsertionSet
 	 */
@@ -37,6 +43,31 @@ public class InsertionSet<T> extends SortingSet<T> {
 	public InsertionSet (int initialCapacity) {
 		super (initialCapacity);
 	}
+	/*
+	 * Create a InsertionSet that sorts the given data list in place
+	 * @param list The data list to sort
+	 * @param listeners The listeners of the new InsertionSet
+	 */
+	InsertionSet (List<T> list, List<ISortEventListener<T> > listeners) {
+		super (list, listeners);
+	}
+	
+	/**
+	 * Get the status of the binary insertion flag
+	 * @return If the InsertionSet uses binary insertion
+	 */
+	public boolean binary () {
+		return _binary;
+	}
+	/**
+	 * Set the status of the binary insertion flag.  While set each item's
+	 * insertion point is found with a binary search and the items after it
+	 * are shifted up together, which takes O(n log n) comparisons.
+	 * @param binary The status of the binary insertion flag
+	 */
+	public void binary (boolean binary) {
+		_binary = binary;
+	}
 	
 	/*
 	 * Perform an insertion sort on the given data set
@@ -46,7 +77,10 @@ public class InsertionSet<T> extends SortingSet<T> {
 	 * @param right The right offset of the data
 	 */
 	private static <T> void insertionsort (InsertionSet<T> set, int left, int right) {
+        double length = right - left;
         for (int i = left; i < right; ++i) {
+        	double done = (i - left) / length;
+        	checkpoint (set, done * done);
             for (int j = i; (j > left) && (((Comparable<? super T>) set._list.get (j - 1)).compareTo (set._list.get (j)) > 0); --j) {
             	Collections.swap (set._list, j, j - 1);
             	fireEvent (set, j - 1, j);
@@ -54,12 +88,63 @@ public class InsertionSet<T> extends SortingSet<T> {
         }
 	}
 	
+	/*
+	 * Perform a binary insertion sort on the given data set, the insertion
+	 * point of each item is found with a binary search over the sorted items
+	 * before it and the items in between are shifted up with a single event.
+	 * This is also the small range finisher for the QuickSet and MergeSet.
+	 * @param <T>
+	 * @param set The SortingSet to perform the sort
+	 * @param left The left offset of the data
+	 * @param right The right offset of the data
+	 */
+	static <T> void binaryinsertionsort (SortingSet<T> set, int left, int right) {
+		binaryinsertionsort (set, left, left + 1, right);
+	}
+	/*
+	 * Perform a binary insertion sort on the given data set whose items are
+	 * already sorted up to the given offset
+	 * @param <T>
+	 * @param set The SortingSet to perform the sort
+	 * @param left The left offset of the data
+	 * @param sorted The offset after the items already sorted
+	 * @param right The right offset of the data
+	 */
+	static <T> void binaryinsertionsort (SortingSet<T> set, int left, int sorted, int right) {
+		List<T> list = set._list;
+		for (int i = Math.max (sorted, left + 1); i < right; ++i) {
+			T item = list.get (i);
+			if (compare (list.get (i - 1), item) <= 0) {
+				continue;
+			}
+			int index = upperBound (list, left, i - 1, item);
+			for (int j = i; j > index; --j) {
+				list.set (j, list.get (j - 1));
+			}
+			list.set (index, item);
+			fireEvent (set, SortEvent.Type.Move, index, i);
+		}
+	}
+	
 	/**
 	 * @see com.test.guisort.sorts.SortingSet#sort(T[])
 	 */
 	public T[] sort (T[] array) {
-        insertionsort (this, 0, array.length);
-		return toArray (array);
+		if (_dirty) {
+			if (_binary) {
+				/* Insert in blocks to check for cancellation between them */
+				double length = array.length;
+				for (int i = 0; i < array.length; i += BINARY_BLOCK_SIZE) {
+					double done = i / length;
+					checkpoint (this, done * done);
+					binaryinsertionsort (this, 0, i, Math.min (i + BINARY_BLOCK_SIZE, array.length));
+				}
+			} else {
+				insertionsort (this, 0, array.length);
+			}
+			sorted (array.length);
+		}
+		return toSortedArray (array);
 	}
 	
 	/**
@@ -0,0 +1,131 @@
+/*
+ * KeySort.java - 
+ * Written By: Nicholas DiPasquale 
+ */
+package com.test.guisort.sorts;
+
+import java.util.*;
+
+/**
+ * Utilities class that sorts items by a precomputed primitive key.  The key
+ * of each item is extracted once into a long[] paired with the item indices,
+ * the pairs are sorted with a least significant digit radix sort, and the
+ * items are then reordered by the sorted indices.  No compareTo call is made
+ * on the items, which makes this much faster than the SortingSet algorithms
+ * when the items are expensive to compare.  The sort is stable.
+ * @author Nicholas DiPasquale
+ */
+public class KeySort {
+
+	/* The number of bits in each radix digit */
+	private static final int RADIX_BITS = 8;
+	/* The number of values of a radix digit */
+	private static final int RADIX = 1 << RADIX_BITS;
+	
+	/**
+	 * Sort the given array in place by the keys of its items
+	 * @param <T>
+	 * @param array The array of items to sort
+	 * @param extractor The IKeyExtractor that gets the key of each item
+	 * @return The sorted array
+	 */
+	public static <T> T[] sort (T[] array, IKeyExtractor<? super T> extractor) {
+		Permutation.apply (argsort (Arrays.asList (array), extractor), array);
+		return array;
+	}
+	/**
+	 * Sort the given list in place by the keys of its items
+	 * @param <T>
+	 * @param list The list of items to sort
+	 * @param extractor The IKeyExtractor that gets the key of each item
+	 */
+	public static <T> void sort (List<T> list, IKeyExtractor<? super T> extractor) {
+		Object[] array = list.toArray ();
+		Permutation.apply (argsort (list, extractor), array);
+		ListIterator<T> iterator = list.listIterator ();
+		for (int i = 0; i < array.length; ++i) {
+			iterator.next ();
+			iterator.set ((T) array[i]);
+		}
+	}
+	
+	/**
+	 * Get the order of the given items by their keys without moving them
+	 * @param <T>
+	 * @param list The list of items to sort
+	 * @param extractor The IKeyExtractor that gets the key of each item
+	 * @return The indices of the items in sorted order
+	 */
+	public static <T> int[] argsort (List<T> list, IKeyExtractor<? super T> extractor) {
+		long[] keys = new long[list.size ()];
+		int[] index = new int[keys.length];
+		int i = 0;
+		for (T obj : list) {
+			keys[i] = extractor.key (obj);
+			index[i] = i++;
+		}
+		radixsort (keys, index);
+		return index;
+	}
+	
+	/*
+	 * Perform a least significant digit radix sort of the keys, moving the
+	 * paired indices with them.  A pass over a digit that is the same for
+	 * every key is skipped so keys from a narrow range take few passes.
+	 * @param keys The keys to sort
+	 * @param index The indices paired with the keys
+	 */
+	static void radixsort (long[] keys, int[] index) {
+		int n = keys.length;
+		if (n < 2) {
+			return;
+		}
+		long[] keyBuffer = new long[n];
+		int[] indexBuffer = new int[n];
+		int[] count = new int[RADIX + 1];
+		long[] sourceKeys = keys, destKeys = keyBuffer;
+		int[] sourceIndex = index, destIndex = indexBuffer;
+		
+		for (int shift = 0; shift < Long.SIZE; shift += RADIX_BITS) {
+			Arrays.fill (count, 0);
+			for (int i = 0; i < n; ++i) {
+				++count[digit (sourceKeys[i], shift) + 1];
+			}
+			if (count[digit (sourceKeys[0], shift) + 1] == n) {
+				continue;
+			}
+			for (int d = 0; d < RADIX; ++d) {
+				count[d + 1] += count[d];
+			}
+			for (int i = 0; i < n; ++i) {
+				int position = count[digit (sourceKeys[i], shift)]++;
+				destKeys[position] = sourceKeys[i];
+				destIndex[position] = sourceIndex[i];
+			}
+			long[] keySwap = sourceKeys;
+			sourceKeys = destKeys;
+			destKeys = keySwap;
+			int[] indexSwap = sourceIndex;
+			sourceIndex = destIndex;
+			destIndex = indexSwap;
+		}
+		
+		if (sourceKeys != keys) {
+			System.arraycopy (sourceKeys, 0, keys, 0, n);
+			System.arraycopy (sourceIndex, 0, index, 0, n);
+		}
+	}
+	
+	/*
+	 * Get a radix digit of a key, the sign bit of the top digit is flipped so
+	 * that negative keys sort before positive keys
+	 * @param key The key to get the digit of
+	 * @param shift The bit offset of the digit
+	 * @return The value of the digit
+	 */
+	private static int digit (long key, int shift) {
+		int digit = (int) (key >>> shift) & (RADIX - 1);
+		return (shift == Long.SIZE - RADIX_BITS) ? digit ^ (RADIX >> 1) : digit;
+	}
+	
+}
@@ -17,6 +17,13 @@ public class MergeSet<T> extends SortingSet<T> {
 	/* The insertion sort drop-off threshold size */
 	private static final int SORT_THRESHOLD = 10;
 	
+	/* The MergeSet that a clone sorts for, which records the progress */
+	private MergeSet<T> _owner;
+	/* The number of items merged by the running sort */
+	private long _merged;
+	/* The number of items the running sort merges in all */
+	private double _work;
+	
 	/**
 	 * Create a new instance of an empty MergeSet
 	 */
@@ -39,12 +46,35 @@ public class MergeSet<T> extends SortingSet<T> {
 	public MergeSet (int initialCapacity) {
 		super (initialCapacity);
 	}
+	/*
+	 * Create a MergeSet that sorts the given data list in place
+	 * @param list The data list to sort
+	 * @param listeners The listeners of the new MergeSet
+	 */
+	MergeSet (List<T> list, List<ISortEventListener<T> > listeners) {
+		super (list, listeners);
+	}
 	/*
 	 * Create a clone of a MergeSet
 	 * @param set The MergeSet to clone
 	 */
 	private MergeSet (MergeSet<T> set) {
 		super (new ArrayList <T> (set._list), set._listeners);
+		_owner = set;
+	}
+	
+	/*
+	 * Record the merge of a range of the data with the MergeSet that owns the
+	 * sort and check for cancellation.  Both data sets hold every item of the
+	 * range between merges, so a cancelled sort loses no items.
+	 * @param <T>
+	 * @param set The MergeSet that was merged into
+	 * @param length The length of the merged range
+	 */
+	private static <T> void merged (MergeSet<T> set, int length) {
+		MergeSet<T> owner = (set._owner != null) ? set._owner : set;
+		owner._merged += length;
+		checkpoint (owner, owner._merged / owner._work);
 	}
 	
 	/*
@@ -56,22 +86,24 @@ public class MergeSet<T> extends SortingSet<T> {
 	 * @param left The left offset of the data
 	 * @param right The right offset of the data
 	 * @param offset The initial offset of the data
+	 * @param unique If only the first of each run of equal items is written
+	 * to the destination, used for the final merge
+	 * @return The right offset of the data written to the destination
 	 */
-	private static <T> void mergesort (MergeSet<T> array, MergeSet<T> buffer, int left, int right, int offset) {
+	private static <T> int mergesort (MergeSet<T> array, MergeSet<T> buffer, int left, int right, int offset, boolean unique) {
         int length = right - left;
         if (length <= 1) {
-        	return;
+        	return right;
         }
         if (length < SORT_THRESHOLD) {
-        	/*
-            for (int i = left; i < right; ++i) {
-                for (int j = i; (j > left) && (((Comparable<? super T>) buffer._list.get (j - 1)).compareTo (buffer._list.get (j)) > 0); --j) {
-                	Collections.swap (buffer._list, j, j - 1);
-                	fireEvent (buffer, j, j - 1);
-                }
-            }
-            return;
-            */
+        	/* Both data sets still hold the unsorted items of a leaf range */
+        	InsertionSet.binaryinsertionsort (buffer, left, right);
+        	merged (buffer, length);
+        	if (unique) {
+        		buffer.dedupe ();
+        		return buffer._list.size ();
+        	}
+        	return right;
         }
         
         int destLeft = left;
@@ -85,34 +117,114 @@ public class MergeSet<T> extends SortingSet<T> {
          */
         int middle = left + ((right - left) >> 1);
         
-        mergesort (buffer, array, left, middle, -offset);
-        mergesort (buffer, array, middle, right, -offset);
+        mergesort (buffer, array, left, middle, -offset, false);
+        mergesort (buffer, array, middle, right, -offset, false);
         
-        if (((Comparable<? super T>) array._list.get (middle - 1)).compareTo (array._list.get (middle)) <= 0) {
+        if (!unique && ((Comparable<? super T>) array._list.get (middle - 1)).compareTo (array._list.get (middle)) <= 0) {
         	for (int i = 0; i < length; ++i) {
-        		buffer._list.set (destLeft + i, array._list.get (left + i));
+        		T item = array._list.get (left + i);
+        		if (buffer._list.get (destLeft + i) != item) {
+        			buffer._list.set (destLeft + i, item);
+        			fireEvent (buffer, SortEvent.Type.Write, destLeft + i, left + i);
+        		}
         	}
-        	fireEvent (buffer, left, destLeft);
-        	return;
+        	merged (buffer, length);
+        	return destRight;
         }
         
-        for (int i = destLeft, u = left, v = middle; i < destRight; ++i) {
+        int i = destLeft;
+        for (int u = left, v = middle; u < middle || v < right; ) {
+            T item;
+            int source;
             if (v >= right || u < middle && (((Comparable<? super T>) array._list.get (u)).compareTo (array._list.get (v)) <= 0)) {
-                buffer._list.set (i, array._list.get (u++));
-                fireEvent (buffer, i, u - 1);
+                item = array._list.get (source = u++);
             } else {
-                buffer._list.set (i, array._list.get (v++));
-                fireEvent (buffer, i, v - 1);
+                item = array._list.get (source = v++);
+            }
+            if (unique && i > destLeft && compare (buffer._list.get (i - 1), item) == 0) {
+                continue;
             }
+            buffer._list.set (i++, item);
+            fireEvent (buffer, SortEvent.Type.Write, i - 1, source);
         }
+        merged (buffer, length);
+        return i;
+	}
+	
+	/*
+	 * Perform a merge sort that counts the inversions in the data, the pairs
+	 * of items that are out of order.  The source and destination lists must
+	 * hold the same items on entry, the sorted items are left in the
+	 * destination.
+	 * @param <T>
+	 * @param source The source list of items
+	 * @param dest The destination list of items
+	 * @param left The left offset of the data
+	 * @param right The right offset of the data
+	 * @return The number of inversions in the data
+	 */
+	static <T> long inversions (List<T> source, List<T> dest, int left, int right) {
+		if (right - left < SORT_THRESHOLD) {
+			long count = 0;
+			for (int i = left + 1; i < right; ++i) {
+				T item = dest.get (i);
+				int j = i;
+				for (; j > left && compare (dest.get (j - 1), item) > 0; --j) {
+					dest.set (j, dest.get (j - 1));
+				}
+				dest.set (j, item);
+				count += i - j;
+			}
+			return count;
+		}
+		int middle = left + ((right - left) >> 1);
+		return inversions (dest, source, left, middle) + inversions (dest, source, middle, right) + inversions (source, dest, left, middle, right);
+	}
+	
+	/*
+	 * Merge two sorted halves of the source into the destination, counting
+	 * the inversions between the halves
+	 * @param <T>
+	 * @param source The source list holding the sorted halves
+	 * @param dest The destination list of the merged items
+	 * @param left The left offset of the data
+	 * @param middle The offset of the second half
+	 * @param right The right offset of the data
+	 * @return The number of inversions between the halves
+	 */
+	static <T> long inversions (List<T> source, List<T> dest, int left, int middle, int right) {
+		long count = 0;
+		for (int i = left, u = left, v = middle; i < right; ++i) {
+			if (v >= right || u < middle && compare (source.get (u), source.get (v)) <= 0) {
+				dest.set (i, source.get (u++));
+			} else {
+				dest.set (i, source.get (v++));
+				count += middle - u;
+			}
+		}
+		return count;
 	}
 	
 	/**
 	 * @see com.test.guisort.sorts.SortingSet#sort(T[])
 	 */
 	public T[] sort (T[] array) {
-        mergesort (new MergeSet<T> (this), this, 0, array.length, 0);
-		return toArray (array);
+		if (_dirty) {
+			boolean unique = _unique && array.length >= _list.size ();
+			_merged = 0;
+			_work = array.length;
+			for (int length = array.length; length >= SORT_THRESHOLD; length = (length + 1) >> 1) {
+				_work += array.length;
+			}
+			int right = mergesort (new MergeSet<T> (this), this, 0, array.length, 0, unique);
+			if (unique) {
+				_list.subList (right, _list.size ()).clear ();
+				_dirty = false;
+			} else {
+				sorted (array.length);
+			}
+		}
+		return toSortedArray (array);
 	}
 	
 	/**
@@ -0,0 +1,413 @@
+/*
+ * PdqSet.java - 
+ * Written By: Nicholas DiPasquale 
+ */
+package com.test.guisort.sorts;
+
+import java.util.*;
+
+/**
+ * A SortingSet that implements the pattern-defeating quick sort algorithm to
+ * sort the data contained in the set.  The quick sort notices partitions
+ * that needed no swaps and finishes them with a bounded insertion sort, which
+ * sorts presorted data in linear time, partitions the duplicates of the
+ * items before a range out of it at once, and breaks up patterns that
+ * unbalance the partitions with fixed swaps before falling back to a heap
+ * sort for an O(n log n) worst case.
+ * @author Nicholas DiPasquale
+ * @param <T>
+ */
+public class PdqSet<T> extends SortingSet<T> {
+
+	/* The insertion sort drop-off threshold size */
+	private static final int INSERTION_THRESHOLD = 24;
+	/* The pseudo-median of 9 selection algorithm threshold */
+	private static final int NINTHER_THRESHOLD = 128;
+	/* The most items the partial insertion sort moves before giving up */
+	private static final int PARTIAL_INSERTION_LIMIT = 8;
+	
+	/* The number of items placed by the running sort */
+	private int _finalized;
+	
+	/**
+	 * Create a new instance of an empty PdqSet
+	 */
+	public PdqSet () {
+		super ();
+	}
+	/**
+	 * Create a new instance of a PdqSet that initially contains the items in
+	 * the given Collection
+	 * @param collection A Collection of items to initially add to the PdqSet
+	 */
+	public PdqSet (Collection<T> collection) {
+		super (collection);
+	}
+	/**
+	 * Create a new instance of a PdqSet that has the given initial capacity
+	 * @param initialCapacity The initial capacity of the new PdqSet
+	 */
+	public PdqSet (int initialCapacity) {
+		super (initialCapacity);
+	}
+	/*
+	 * Create a PdqSet that sorts the given data list in place
+	 * @param list The data list to sort
+	 * @param listeners The listeners of the new PdqSet
+	 */
+	PdqSet (List<T> list, List<ISortEventListener<T> > listeners) {
+		super (list, listeners);
+	}
+	
+	/*
+	 * Record the items of the data that are in their final place and check
+	 * for cancellation
+	 * @param <T>
+	 * @param set The PdqSet of data being sorted
+	 * @param length The number of items placed
+	 */
+	private static <T> void finalized (PdqSet<T> set, int length) {
+		set._finalized += length;
+		checkpoint (set, (double) set._finalized / (double) set._list.size ());
+	}
+	
+	/*
+	 * Perform the pattern-defeating quick sort on a range of data
+	 * @param <T>
+	 * @param set The PdqSet of data to sort
+	 * @param begin The left offset of the data
+	 * @param end The right offset of the data
+	 */
+	static <T> void pdqsort (PdqSet<T> set, int begin, int end) {
+		pdqsort (set, begin, end, 32 - Integer.numberOfLeadingZeros (end - begin), true);
+	}
+	
+	/*
+	 * Perform the recursive pattern-defeating quick sort on a range of data
+	 * @param <T>
+	 * @param set The PdqSet of data to sort
+	 * @param begin The left offset of the data
+	 * @param end The right offset of the data
+	 * @param badAllowed The unbalanced partitions left before the heap sort
+	 * @param leftmost If there are no items before the data to compare with
+	 */
+	private static <T> void pdqsort (PdqSet<T> set, int begin, int end, int badAllowed, boolean leftmost) {
+		while (true) {
+			int size = end - begin;
+			if (size < INSERTION_THRESHOLD) {
+				insertionsort (set, begin, end);
+				finalized (set, size);
+				return;
+			}
+			
+			/* Move the median of 3, or the pseudo-median of 9, to the front */
+			int middle = begin + size / 2;
+			if (size > NINTHER_THRESHOLD) {
+				sort3 (set, begin, middle, end - 1);
+				sort3 (set, begin + 1, middle - 1, end - 2);
+				sort3 (set, begin + 2, middle + 1, end - 3);
+				sort3 (set, middle - 1, middle, middle + 1);
+				swap (set, begin, middle);
+			} else {
+				sort3 (set, middle, begin, end - 1);
+			}
+			
+			// The item before the data is not greater than any of it, so a
+			// pivot equal to it is the least item and its duplicates are
+			// partitioned out at once
+			if (!leftmost && compare (set._list.get (begin - 1), set._list.get (begin)) >= 0) {
+				int pivot = partitionLeft (set, begin, end) + 1;
+				finalized (set, pivot - begin);
+				begin = pivot;
+				continue;
+			}
+			
+			int[] result = partitionRight (set, begin, end);
+			int pivot = result[0];
+			boolean partitioned = result[1] != 0;
+			finalized (set, 1);
+			
+			int leftSize = pivot - begin, rightSize = end - (pivot + 1);
+			if (leftSize < size / 8 || rightSize < size / 8) {
+				if (--badAllowed == 0) {
+					heapsort (set, begin, end);
+					finalized (set, size - 1);
+					return;
+				}
+				if (leftSize >= INSERTION_THRESHOLD) {
+					swap (set, begin, begin + leftSize / 4);
+					swap (set, pivot - 1, pivot - leftSize / 4);
+					if (leftSize > NINTHER_THRESHOLD) {
+						swap (set, begin + 1, begin + (leftSize / 4 + 1));
+						swap (set, begin + 2, begin + (leftSize / 4 + 2));
+						swap (set, pivot - 2, pivot - (leftSize / 4 + 1));
+						swap (set, pivot - 3, pivot - (leftSize / 4 + 2));
+					}
+				}
+				if (rightSize >= INSERTION_THRESHOLD) {
+					swap (set, pivot + 1, pivot + (1 + rightSize / 4));
+					swap (set, end - 1, end - rightSize / 4);
+					if (rightSize > NINTHER_THRESHOLD) {
+						swap (set, pivot + 2, pivot + (2 + rightSize / 4));
+						swap (set, pivot + 3, pivot + (3 + rightSize / 4));
+						swap (set, end - 2, end - (1 + rightSize / 4));
+						swap (set, end - 3, end - (2 + rightSize / 4));
+					}
+				}
+			} else if (partitioned && partialinsertionsort (set, begin, pivot) && partialinsertionsort (set, pivot + 1, end)) {
+				finalized (set, size - 1);
+				return;
+			}
+			
+			pdqsort (set, begin, pivot, badAllowed, leftmost);
+			begin = pivot + 1;
+			leftmost = false;
+		}
+	}
+	
+	/*
+	 * Partition the data around the pivot at its front with the items less
+	 * than the pivot moved to the left of it
+	 * @param <T>
+	 * @param set The PdqSet of data to partition
+	 * @param begin The left offset of the data
+	 * @param end The right offset of the data
+	 * @return The index of the pivot and 1 if no items were swapped, else 0
+	 */
+	private static <T> int[] partitionRight (PdqSet<T> set, int begin, int end) {
+		List<T> list = set._list;
+		T pivot = list.get (begin);
+		
+		int first = begin + 1, last = end;
+		while (first < end && compare (list.get (first), pivot) < 0) {
+			++first;
+		}
+		if (first - 1 == begin) {
+			while (first < last && compare (list.get (--last), pivot) >= 0);
+		} else {
+			while (compare (list.get (--last), pivot) >= 0);
+		}
+		
+		boolean partitioned = first >= last;
+		while (first < last) {
+			swap (set, first, last);
+			while (compare (list.get (++first), pivot) < 0);
+			while (compare (list.get (--last), pivot) >= 0);
+		}
+		
+		swap (set, begin, first - 1);
+		return new int[] { first - 1, partitioned ? 1 : 0 };
+	}
+	
+	/*
+	 * Partition the data around the pivot at its front with the items not
+	 * greater than the pivot moved to the left of it
+	 * @param <T>
+	 * @param set The PdqSet of data to partition
+	 * @param begin The left offset of the data
+	 * @param end The right offset of the data
+	 * @return The index of the pivot
+	 */
+	private static <T> int partitionLeft (PdqSet<T> set, int begin, int end) {
+		List<T> list = set._list;
+		T pivot = list.get (begin);
+		
+		int first = begin, last = end;
+		while (compare (pivot, list.get (--last)) < 0);
+		if (last + 1 == end) {
+			while (first < last && compare (pivot, list.get (++first)) >= 0);
+		} else {
+			while (compare (pivot, list.get (++first)) >= 0);
+		}
+		
+		while (first < last) {
+			swap (set, first, last);
+			while (compare (pivot, list.get (--last)) < 0);
+			while (compare (pivot, list.get (++first)) >= 0);
+		}
+		
+		swap (set, begin, last);
+		return last;
+	}
+	
+	/*
+	 * Perform an insertion sort on a range of the data
+	 * @param <T>
+	 * @param set The PdqSet of data to sort
+	 * @param begin The left offset of the data
+	 * @param end The right offset of the data
+	 */
+	private static <T> void insertionsort (PdqSet<T> set, int begin, int end) {
+		for (int i = begin + 1; i < end; ++i) {
+			insert (set, begin, i);
+		}
+	}
+	
+	/*
+	 * Perform an insertion sort on a range of the data that gives up once it
+	 * has moved too many items
+	 * @param <T>
+	 * @param set The PdqSet of data to sort
+	 * @param begin The left offset of the data
+	 * @param end The right offset of the data
+	 * @return If the range was sorted
+	 */
+	private static <T> boolean partialinsertionsort (PdqSet<T> set, int begin, int end) {
+		int moved = 0;
+		for (int i = begin + 1; i < end; ++i) {
+			moved += insert (set, begin, i);
+			if (moved > PARTIAL_INSERTION_LIMIT) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/*
+	 * Insert an item into the sorted items before it, the greater items are
+	 * shifted right one at a time
+	 * @param <T>
+	 * @param set The PdqSet of data
+	 * @param begin The offset of the first sorted item
+	 * @param index The index of the item to insert
+	 * @return The number of items shifted
+	 */
+	private static <T> int insert (PdqSet<T> set, int begin, int index) {
+		List<T> list = set._list;
+		T item = list.get (index);
+		int i = index;
+		for (; i > begin && compare (list.get (i - 1), item) > 0; --i) {
+			list.set (i, list.get (i - 1));
+			fireEvent (set, SortEvent.Type.Write, i, i - 1);
+		}
+		if (i != index) {
+			list.set (i, item);
+			fireEvent (set, SortEvent.Type.Write, i, index);
+		}
+		return index - i;
+	}
+	
+	/*
+	 * Perform a heap sort on a range of the data
+	 * @param <T>
+	 * @param set The PdqSet of data to sort
+	 * @param begin The left offset of the data
+	 * @param end The right offset of the data
+	 */
+	private static <T> void heapsort (PdqSet<T> set, int begin, int end) {
+		int length = end - begin;
+		for (int i = (length >> 1) - 1; i >= 0; --i) {
+			siftDown (set, begin, i, length);
+		}
+		for (int i = length - 1; i > 0; --i) {
+			swap (set, begin, begin + i);
+			siftDown (set, begin, 0, i);
+		}
+	}
+	
+	/*
+	 * Move an item of a heap down until it is not less than its children
+	 * @param <T>
+	 * @param set The PdqSet of data holding the heap
+	 * @param offset The offset of the heap in the data
+	 * @param index The index of the item in the heap
+	 * @param length The length of the heap
+	 */
+	private static <T> void siftDown (PdqSet<T> set, int offset, int index, int length) {
+		List<T> list = set._list;
+		for (int child; (child = 2 * index + 1) < length; index = child) {
+			if (child + 1 < length && compare (list.get (offset + child), list.get (offset + child + 1)) < 0) {
+				++child;
+			}
+			if (compare (list.get (offset + index), list.get (offset + child)) >= 0) {
+				break;
+			}
+			swap (set, offset + index, offset + child);
+		}
+	}
+	
+	/*
+	 * Sort three items of the data in place
+	 * @param <T>
+	 * @param set The PdqSet of data
+	 * @param a The index of the first item
+	 * @param b The index of the second item
+	 * @param c The index of the third item
+	 */
+	private static <T> void sort3 (PdqSet<T> set, int a, int b, int c) {
+		sort2 (set, a, b);
+		sort2 (set, b, c);
+		sort2 (set, a, b);
+	}
+	
+	/*
+	 * Sort two items of the data in place
+	 * @param <T>
+	 * @param set The PdqSet of data
+	 * @param a The index of the first item
+	 * @param b The index of the second item
+	 */
+	private static <T> void sort2 (PdqSet<T> set, int a, int b) {
+		if (compare (set._list.get (b), set._list.get (a)) < 0) {
+			swap (set, a, b);
+		}
+	}
+	
+	/*
+	 * Swap two items of the data
+	 * @param <T>
+	 * @param set The PdqSet of data
+	 * @param a The first index into the data
+	 * @param b The second index into the data
+	 */
+	private static <T> void swap (PdqSet<T> set, int a, int b) {
+		Collections.swap (set._list, a, b);
+		fireEvent (set, a, b);
+	}
+	
+	/**
+	 * @see com.test.guisort.sorts.SortingSet#sort(T[])
+	 */
+	public T[] sort (T[] array) {
+		if (_dirty) {
+			_finalized = 0;
+			pdqsort (this, 0, array.length);
+			sorted (array.length);
+		}
+		return toSortedArray (array);
+	}
+	
+	/**
+	 * @see com.test.guisort.sorts.SortingSet#getSortInformation()
+	 */
+	public String getSortInformation () {
+		return "Pattern-defeating quick sort\nBest Case: O(n)\nAverage Case: O(n log n)\nWorst Case: O(n log n)\nMemory Usage: O(log n)\nUnstable";
+	}
+	
+	/**
+	 * Perform a pattern-defeating quick sort on the given array of data
+	 * @param <T>
+	 * @param array The array of data to sort
+	 * @return The sorted data array
+	 */
+	public static <T> T[] pdqSort (T[] array) {
+		return pdqSort (array, null);
+	}
+	/**
+	 * Perform a pattern-defeating quick sort on the given array of data with
+	 * the specified ISortEventListener
+	 * @param <T>
+	 * @param array The array of data to sort
+	 * @param listener The ISortEventListener to use while sorting
+	 * @return The sorted data array
+	 */
+	public static <T> T[] pdqSort (T[] array, ISortEventListener<T> listener) {
+		PdqSet<T> set = new PdqSet<T> ();
+		if (listener != null) {
+			set.addSortEventListener (listener);
+		}
+		set.addAll (Arrays.asList (array));
+		return set.sort (array);
+	}
+	
+}
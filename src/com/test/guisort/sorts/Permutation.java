@@ -0,0 +1,422 @@
+/*
+ * Permutation.java - 
+ * Written By: Nicholas DiPasquale 
+ */
+package com.test.guisort.sorts;
+
+import java.util.*;
+
+/**
+ * Utilities class for sorting by index permutation.  An argsort returns the
+ * order of the items as an int[] of indices without moving the items, and
+ * the apply methods then reorder any number of parallel arrays by that order.
+ * @author Nicholas DiPasquale
+ */
+public class Permutation {
+
+	/* The insertion sort drop-off threshold size */
+	private static final int SORT_THRESHOLD = 10;
+	
+	/**
+	 * Get the sorted order of the given keys, the keys are not moved.  The
+	 * sort is a stable merge sort over the indices so equal keys keep their
+	 * original order.
+	 * @param <T>
+	 * @param keys The keys to sort
+	 * @return The indices of the keys in sorted order
+	 */
+	public static <T> int[] argsort (List<T> keys) {
+		int[] order = identity (keys.size ());
+		mergesort (keys, order.clone (), order, 0, order.length);
+		return order;
+	}
+	/**
+	 * Get the sorted order of the given keys, the keys are not moved
+	 * @param <T>
+	 * @param keys The keys to sort
+	 * @return The indices of the keys in sorted order
+	 */
+	public static <T> int[] argsort (T[] keys) {
+		return argsort (Arrays.asList (keys));
+	}
+	/**
+	 * Get the stable sorted order of the given int keys without boxing them,
+	 * the keys are not moved
+	 * @param keys The keys to sort
+	 * @return The indices of the keys in sorted order
+	 */
+	public static int[] argsort (int[] keys) {
+		int[] order = identity (keys.length);
+		mergesort (keys, order.clone (), order, 0, order.length);
+		return order;
+	}
+	/**
+	 * Get the stable sorted order of the given long keys without boxing them,
+	 * the keys are not moved
+	 * @param keys The keys to sort
+	 * @return The indices of the keys in sorted order
+	 */
+	public static int[] argsort (long[] keys) {
+		int[] order = identity (keys.length);
+		mergesort (keys, order.clone (), order, 0, order.length);
+		return order;
+	}
+	/**
+	 * Get the stable sorted order of the given double keys without boxing
+	 * them, in the order of Arrays.sort with -0.0 before 0.0 and NaN last.
+	 * The keys are not moved.
+	 * @param keys The keys to sort
+	 * @return The indices of the keys in sorted order
+	 */
+	public static int[] argsort (double[] keys) {
+		int[] order = identity (keys.length);
+		mergesort (keys, order.clone (), order, 0, order.length);
+		return order;
+	}
+	
+	/*
+	 * Create the identity order of the given length
+	 * @param length The number of indices
+	 * @return The indices from 0 to length - 1
+	 */
+	private static int[] identity (int length) {
+		int[] order = new int[length];
+		for (int i = 0; i < length; ++i) {
+			order[i] = i;
+		}
+		return order;
+	}
+	
+	/*
+	 * Perform a recursive merge sort of the indices by their keys with a drop
+	 * off to insertion sort, the source and destination swap at each level
+	 * @param <T>
+	 * @param keys The keys to compare
+	 * @param source The indices to read from
+	 * @param dest The indices to write to
+	 * @param left The left offset of the indices
+	 * @param right The right offset of the indices
+	 */
+	private static <T> void mergesort (List<T> keys, int[] source, int[] dest, int left, int right) {
+		if (right - left < SORT_THRESHOLD) {
+			for (int i = left + 1; i < right; ++i) {
+				int index = dest[i];
+				T key = keys.get (index);
+				int j = i;
+				for (; j > left && SortingSet.compare (keys.get (dest[j - 1]), key) > 0; --j) {
+					dest[j] = dest[j - 1];
+				}
+				dest[j] = index;
+			}
+			return;
+		}
+		
+		int middle = left + ((right - left) >> 1);
+		mergesort (keys, dest, source, left, middle);
+		mergesort (keys, dest, source, middle, right);
+		
+		if (SortingSet.compare (keys.get (source[middle - 1]), keys.get (source[middle])) <= 0) {
+			System.arraycopy (source, left, dest, left, right - left);
+			return;
+		}
+		for (int i = left, u = left, v = middle; i < right; ++i) {
+			if (v >= right || u < middle && SortingSet.compare (keys.get (source[u]), keys.get (source[v])) <= 0) {
+				dest[i] = source[u++];
+			} else {
+				dest[i] = source[v++];
+			}
+		}
+	}
+	
+	/*
+	 * Perform a recursive merge sort of the indices by their int keys with a
+	 * drop off to insertion sort, the source and destination swap at each level
+	 * @param keys The keys to compare
+	 * @param source The indices to read from
+	 * @param dest The indices to write to
+	 * @param left The left offset of the indices
+	 * @param right The right offset of the indices
+	 */
+	private static void mergesort (int[] keys, int[] source, int[] dest, int left, int right) {
+		if (right - left < SORT_THRESHOLD) {
+			for (int i = left + 1; i < right; ++i) {
+				int index = dest[i];
+				int key = keys[index];
+				int j = i;
+				for (; j > left && keys[dest[j - 1]] > key; --j) {
+					dest[j] = dest[j - 1];
+				}
+				dest[j] = index;
+			}
+			return;
+		}
+		
+		int middle = left + ((right - left) >> 1);
+		mergesort (keys, dest, source, left, middle);
+		mergesort (keys, dest, source, middle, right);
+		
+		if (keys[source[middle - 1]] <= keys[source[middle]]) {
+			System.arraycopy (source, left, dest, left, right - left);
+			return;
+		}
+		for (int i = left, u = left, v = middle; i < right; ++i) {
+			if (v >= right || u < middle && keys[source[u]] <= keys[source[v]]) {
+				dest[i] = source[u++];
+			} else {
+				dest[i] = source[v++];
+			}
+		}
+	}
+	
+	/*
+	 * Perform a recursive merge sort of the indices by their long keys with a
+	 * drop off to insertion sort, the source and destination swap at each level
+	 * @param keys The keys to compare
+	 * @param source The indices to read from
+	 * @param dest The indices to write to
+	 * @param left The left offset of the indices
+	 * @param right The right offset of the indices
+	 */
+	private static void mergesort (long[] keys, int[] source, int[] dest, int left, int right) {
+		if (right - left < SORT_THRESHOLD) {
+			for (int i = left + 1; i < right; ++i) {
+				int index = dest[i];
+				long key = keys[index];
+				int j = i;
+				for (; j > left && keys[dest[j - 1]] > key; --j) {
+					dest[j] = dest[j - 1];
+				}
+				dest[j] = index;
+			}
+			return;
+		}
+		
+		int middle = left + ((right - left) >> 1);
+		mergesort (keys, dest, source, left, middle);
+		mergesort (keys, dest, source, middle, right);
+		
+		if (keys[source[middle - 1]] <= keys[source[middle]]) {
+			System.arraycopy (source, left, dest, left, right - left);
+			return;
+		}
+		for (int i = left, u = left, v = middle; i < right; ++i) {
+			if (v >= right || u < middle && keys[source[u]] <= keys[source[v]]) {
+				dest[i] = source[u++];
+			} else {
+				dest[i] = source[v++];
+			}
+		}
+	}
+	
+	/*
+	 * Perform a recursive merge sort of the indices by their double keys with a
+	 * drop off to insertion sort, the source and destination swap at each level
+	 * @param keys The keys to compare
+	 * @param source The indices to read from
+	 * @param dest The indices to write to
+	 * @param left The left offset of the indices
+	 * @param right The right offset of the indices
+	 */
+	private static void mergesort (double[] keys, int[] source, int[] dest, int left, int right) {
+		if (right - left < SORT_THRESHOLD) {
+			for (int i = left + 1; i < right; ++i) {
+				int index = dest[i];
+				double key = keys[index];
+				int j = i;
+				for (; j > left && Double.compare (keys[dest[j - 1]], key) > 0; --j) {
+					dest[j] = dest[j - 1];
+				}
+				dest[j] = index;
+			}
+			return;
+		}
+		
+		int middle = left + ((right - left) >> 1);
+		mergesort (keys, dest, source, left, middle);
+		mergesort (keys, dest, source, middle, right);
+		
+		if (Double.compare (keys[source[middle - 1]], keys[source[middle]]) <= 0) {
+			System.arraycopy (source, left, dest, left, right - left);
+			return;
+		}
+		for (int i = left, u = left, v = middle; i < right; ++i) {
+			if (v >= right || u < middle && Double.compare (keys[source[u]], keys[source[v]]) <= 0) {
+				dest[i] = source[u++];
+			} else {
+				dest[i] = source[v++];
+			}
+		}
+	}
+	
+	
+	/**
+	 * Reorder each of the given arrays in place so that item i of each array
+	 * becomes the item at order[i].  The cycles of the permutation are
+	 * followed once and every array is moved along each cycle together.
+	 * @param order The permutation returned by an argsort
+	 * @param columns The parallel arrays to reorder
+	 * @throws IllegalArgumentException If the order is not a permutation of
+	 * the indices of every column
+	 */
+	public static void apply (int[] order, Object[]... columns) {
+		for (int c = 0; c < columns.length; ++c) {
+			check (order, c, columns[c].length);
+		}
+		check (order);
+		boolean[] done = new boolean[order.length];
+		Object[] held = new Object[columns.length];
+		for (int start = 0; start < order.length; ++start) {
+			if (done[start]) {
+				continue;
+			}
+			for (int c = 0; c < columns.length; ++c) {
+				held[c] = columns[c][start];
+			}
+			int i = start;
+			for (int next = order[i]; next != start; i = next, next = order[i]) {
+				for (int c = 0; c < columns.length; ++c) {
+					columns[c][i] = columns[c][next];
+				}
+				done[i] = true;
+			}
+			for (int c = 0; c < columns.length; ++c) {
+				columns[c][i] = held[c];
+			}
+			done[i] = true;
+		}
+	}
+	/**
+	 * Reorder each of the given int arrays in place so that item i of each
+	 * array becomes the item at order[i]
+	 * @param order The permutation returned by an argsort
+	 * @param columns The parallel arrays to reorder
+	 * @throws IllegalArgumentException If the order is not a permutation of
+	 * the indices of every column
+	 */
+	public static void apply (int[] order, int[]... columns) {
+		for (int c = 0; c < columns.length; ++c) {
+			check (order, c, columns[c].length);
+		}
+		check (order);
+		boolean[] done = new boolean[order.length];
+		int[] held = new int[columns.length];
+		for (int start = 0; start < order.length; ++start) {
+			if (done[start]) {
+				continue;
+			}
+			for (int c = 0; c < columns.length; ++c) {
+				held[c] = columns[c][start];
+			}
+			int i = start;
+			for (int next = order[i]; next != start; i = next, next = order[i]) {
+				for (int c = 0; c < columns.length; ++c) {
+					columns[c][i] = columns[c][next];
+				}
+				done[i] = true;
+			}
+			for (int c = 0; c < columns.length; ++c) {
+				columns[c][i] = held[c];
+			}
+			done[i] = true;
+		}
+	}
+	/**
+	 * Reorder each of the given long arrays in place so that item i of each
+	 * array becomes the item at order[i]
+	 * @param order The permutation returned by an argsort
+	 * @param columns The parallel arrays to reorder
+	 * @throws IllegalArgumentException If the order is not a permutation of
+	 * the indices of every column
+	 */
+	public static void apply (int[] order, long[]... columns) {
+		for (int c = 0; c < columns.length; ++c) {
+			check (order, c, columns[c].length);
+		}
+		check (order);
+		boolean[] done = new boolean[order.length];
+		long[] held = new long[columns.length];
+		for (int start = 0; start < order.length; ++start) {
+			if (done[start]) {
+				continue;
+			}
+			for (int c = 0; c < columns.length; ++c) {
+				held[c] = columns[c][start];
+			}
+			int i = start;
+			for (int next = order[i]; next != start; i = next, next = order[i]) {
+				for (int c = 0; c < columns.length; ++c) {
+					columns[c][i] = columns[c][next];
+				}
+				done[i] = true;
+			}
+			for (int c = 0; c < columns.length; ++c) {
+				columns[c][i] = held[c];
+			}
+			done[i] = true;
+		}
+	}
+	/**
+	 * Reorder each of the given double arrays in place so that item i of each
+	 * array becomes the item at order[i]
+	 * @param order The permutation returned by an argsort
+	 * @param columns The parallel arrays to reorder
+	 * @throws IllegalArgumentException If the order is not a permutation of
+	 * the indices of every column
+	 */
+	public static void apply (int[] order, double[]... columns) {
+		for (int c = 0; c < columns.length; ++c) {
+			check (order, c, columns[c].length);
+		}
+		check (order);
+		boolean[] done = new boolean[order.length];
+		double[] held = new double[columns.length];
+		for (int start = 0; start < order.length; ++start) {
+			if (done[start]) {
+				continue;
+			}
+			for (int c = 0; c < columns.length; ++c) {
+				held[c] = columns[c][start];
+			}
+			int i = start;
+			for (int next = order[i]; next != start; i = next, next = order[i]) {
+				for (int c = 0; c < columns.length; ++c) {
+					columns[c][i] = columns[c][next];
+				}
+				done[i] = true;
+			}
+			for (int c = 0; c < columns.length; ++c) {
+				columns[c][i] = held[c];
+			}
+			done[i] = true;
+		}
+	}
+	
+	/*
+	 * Check that a column has an item for each index of the order
+	 * @param order The order to apply
+	 * @param column The index of the column
+	 * @param length The length of the column
+	 * @throws IllegalArgumentException If the lengths differ
+	 */
+	private static void check (int[] order, int column, int length) {
+		if (length != order.length) {
+			throw new IllegalArgumentException ("Column " + column + " has " + length + " items for an order of " + order.length);
+		}
+	}
+	/*
+	 * Check that the order holds each index from 0 to order.length - 1 once,
+	 * otherwise a cycle of the order never returns to its start
+	 * @param order The order to apply
+	 * @throws IllegalArgumentException If the order is not a permutation
+	 */
+	private static void check (int[] order) {
+		boolean[] seen = new boolean[order.length];
+		for (int index : order) {
+			if (index < 0 || index >= order.length || seen[index]) {
+				throw new IllegalArgumentException ("The order is not a permutation, index " + index + " is out of range or repeated");
+			}
+			seen[index] = true;
+		}
+	}
+	
+}
@@ -0,0 +1,243 @@
+/*
+ * Presortedness.java - 
+ * Written By: Nicholas DiPasquale 
+ */
+package com.test.guisort.sorts;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Measurements of how far a data set is from being sorted.  The measurements
+ * are the inversions, counted with a MergeSet counting merge, the ascending
+ * runs, the longest ascending subsequence and the Rem measure derived from it,
+ * the Osc measure and the ratio of duplicate items.  Each takes O(n log n)
+ * time or better and the inversions may be counted in parallel.
+ * @author Nicholas DiPasquale
+ */
+public class Presortedness {
+
+	/* The smallest range whose inversions are counted in parallel */
+	private static final int PARALLEL_THRESHOLD = 8192;
+	/* The pool shared by the parallel measurements, its threads start on demand */
+	private static final ForkJoinPool POOL = new ForkJoinPool ();
+	
+	/**
+	 * Counts the inversions of a range of data on a ForkJoinPool, each task
+	 * counts its two halves in parallel and then merges them
+	 * @author Nicholas DiPasquale
+	 * @param <T>
+	 */
+	private static class InversionTask<T> extends RecursiveTask<Long> {
+		private static final long serialVersionUID = 1L;
+		
+		/* The source list of items */
+		private final List<T> _source;
+		/* The destination list of items */
+		private final List<T> _dest;
+		/* The left offset of the data */
+		private final int _left;
+		/* The right offset of the data */
+		private final int _right;
+		
+		/**
+		 * Create a new InversionTask for the given range of data
+		 * @param source The source list of items
+		 * @param dest The destination list of items
+		 * @param left The left offset of the data
+		 * @param right The right offset of the data
+		 */
+		public InversionTask (List<T> source, List<T> dest, int left, int right) {
+			_source = source;
+			_dest = dest;
+			_left = left;
+			_right = right;
+		}
+		
+		/**
+		 * @see java.util.concurrent.RecursiveTask#compute ()
+		 */
+		protected Long compute () {
+			if (_right - _left < PARALLEL_THRESHOLD) {
+				return Long.valueOf (MergeSet.inversions (_source, _dest, _left, _right));
+			}
+			int middle = _left + ((_right - _left) >> 1);
+			InversionTask<T> first = new InversionTask<T> (_dest, _source, _left, middle);
+			InversionTask<T> second = new InversionTask<T> (_dest, _source, middle, _right);
+			first.fork ();
+			long count = second.compute ().longValue () + first.join ().longValue ();
+			return Long.valueOf (count + MergeSet.inversions (_source, _dest, _left, middle, _right));
+		}
+		
+	} /* END: class InversionTask */
+	
+	/* The number of items measured */
+	private final int _size;
+	/* The number of pairs of items that are out of order */
+	private final long _inversions;
+	/* The number of ascending runs */
+	private final int _runs;
+	/* The length of the longest ascending subsequence */
+	private final int _longestAscending;
+	/* The sum over the items of the adjacent pairs that cross them */
+	private final long _osc;
+	/* The number of items equal to an earlier item */
+	private final int _duplicates;
+	
+	/**
+	 * Measure the presortedness of the given Collection of items
+	 * @param <T>
+	 * @param collection The items to measure in their iteration order
+	 * @param parallel If the inversions are counted on several threads
+	 */
+	public <T> Presortedness (Collection<T> collection, boolean parallel) {
+		List<T> list = new ArrayList<T> (collection);
+		_size = list.size ();
+		
+		int runs = Math.min (_size, 1);
+		for (int i = 1; i < _size; ++i) {
+			if (SortingSet.compare (list.get (i - 1), list.get (i)) > 0) {
+				++runs;
+			}
+		}
+		_runs = runs;
+		_longestAscending = longestAscending (list);
+		_osc = osc (list);
+		
+		List<T> sorted = new ArrayList<T> (list);
+		if (parallel && _size >= PARALLEL_THRESHOLD) {
+			_inversions = POOL.invoke (new InversionTask<T> (list, sorted, 0, _size)).longValue ();
+		} else {
+			_inversions = MergeSet.inversions (list, sorted, 0, _size);
+		}
+		
+		int duplicates = 0;
+		for (int i = 1; i < _size; ++i) {
+			if (SortingSet.compare (sorted.get (i - 1), sorted.get (i)) == 0) {
+				++duplicates;
+			}
+		}
+		_duplicates = duplicates;
+	}
+	/**
+	 * Measure the presortedness of the given Collection of items on the
+	 * calling thread
+	 * @param <T>
+	 * @param collection The items to measure in their iteration order
+	 */
+	public <T> Presortedness (Collection<T> collection) {
+		this (collection, false);
+	}
+	
+	/*
+	 * Get the length of the longest ascending subsequence using patience
+	 * sorting, the tails list holds the least tail of each length found
+	 * @param <T>
+	 * @param list The items to measure
+	 * @return The length of the longest ascending subsequence
+	 */
+	private static <T> int longestAscending (List<T> list) {
+		List<T> tails = new ArrayList<T> ();
+		for (T item : list) {
+			int index = SortingSet.upperBound (tails, 0, tails.size (), item);
+			if (index == tails.size ()) {
+				tails.add (item);
+			} else {
+				tails.set (index, item);
+			}
+		}
+		return tails.size ();
+	}
+	
+	/*
+	 * Get the Osc measure, for every item the number of adjacent pairs whose
+	 * values lie strictly on either side of it.  The low and high ends of the
+	 * pairs are sorted so each item is counted with two binary searches.
+	 * @param <T>
+	 * @param list The items to measure
+	 * @return The Osc measure
+	 */
+	private static <T> long osc (List<T> list) {
+		List<T> lows = new ArrayList<T> ();
+		List<T> highs = new ArrayList<T> ();
+		for (int i = 1; i < list.size (); ++i) {
+			T a = list.get (i - 1), b = list.get (i);
+			int compare = SortingSet.compare (a, b);
+			if (compare != 0) {
+				lows.add ((compare < 0) ? a : b);
+				highs.add ((compare < 0) ? b : a);
+			}
+		}
+		QuickSet<T> low = new QuickSet<T> (lows);
+		QuickSet<T> high = new QuickSet<T> (highs);
+		low.ensureSorted ();
+		high.ensureSorted ();
+		
+		long osc = 0;
+		for (T item : list) {
+			osc += SortingSet.lowerBound (low._list, 0, low._list.size (), item) - SortingSet.upperBound (high._list, 0, high._list.size (), item);
+		}
+		return osc;
+	}
+	
+	/**
+	 * Get the number of items measured
+	 * @return The number of items
+	 */
+	public int size () {
+		return _size;
+	}
+	
+	/**
+	 * Get the number of inversions, the pairs of items that are out of order
+	 * @return The number of inversions
+	 */
+	public long inversions () {
+		return _inversions;
+	}
+	
+	/**
+	 * Get the number of ascending runs, one more than the number of adjacent
+	 * pairs that are out of order
+	 * @return The number of ascending runs
+	 */
+	public int runs () {
+		return _runs;
+	}
+	
+	/**
+	 * Get the length of the longest ascending subsequence
+	 * @return The length of the longest ascending subsequence
+	 */
+	public int longestAscending () {
+		return _longestAscending;
+	}
+	
+	/**
+	 * Get the Rem measure, the fewest items that must be removed to leave the
+	 * data sorted
+	 * @return The Rem measure
+	 */
+	public int rem () {
+		return _size - _longestAscending;
+	}
+	
+	/**
+	 * Get the Osc measure, the sum over the items of the number of adjacent
+	 * pairs of items that cross them
+	 * @return The Osc measure
+	 */
+	public long osc () {
+		return _osc;
+	}
+	
+	/**
+	 * Get the ratio of duplicate items, the items equal to another item that
+	 * sorts before them, to all of the items
+	 * @return The duplicate ratio from 0 to 1
+	 */
+	public double duplicateRatio () {
+		return (_size > 0) ? (double) _duplicates / (double) _size : 0.0;
+	}
+	
+}
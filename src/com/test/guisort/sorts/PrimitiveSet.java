@@ -0,0 +1,210 @@
+/*
+ * PrimitiveSet.java - 
+ * Written By: Nicholas DiPasquale 
+ */
+package com.test.guisort.sorts;
+
+import java.util.*;
+
+/**
+ * A SortingSet that sorts Integer, Long, Float and Double data unboxed.  The
+ * data is copied into a primitive array, sorted with the PrimitiveSort block
+ * quick sort and copied back, which avoids the compareTo call and pointer
+ * chasing of each comparison.  Data of any other type, or of mixed types, is
+ * sorted with a block partitioned QuickSet instead.
+ * @author Nicholas DiPasquale
+ * @param <T>
+ */
+public class PrimitiveSet<T> extends SortingSet<T> {
+
+	/* The SortingSet running the current sort of other types */
+	private volatile SortingSet<T> _delegate;
+	
+	/**
+	 * Create a new instance of an empty PrimitiveSet
+	 */
+	public PrimitiveSet () {
+		super ();
+	}
+	/**
+	 * Create a new instance of a PrimitiveSet that initially contains the
+	 * items in the given Collection
+	 * @param collection A Collection of items to initially add to the
+	 * PrimitiveSet
+	 */
+	public PrimitiveSet (Collection<T> collection) {
+		super (collection);
+	}
+	/**
+	 * Create a new instance of a PrimitiveSet that has the given initial
+	 * capacity
+	 * @param initialCapacity The initial capacity of the new PrimitiveSet
+	 */
+	public PrimitiveSet (int initialCapacity) {
+		super (initialCapacity);
+	}
+	
+	/*
+	 * Get the common type of the items of the data
+	 * @param list The data list
+	 * @param length The length of the data
+	 * @return The class of every item, or null if the items are of more than
+	 * one class
+	 */
+	private static Class<?> type (List<?> list, int length) {
+		Class<?> type = (length > 0) ? list.get (0).getClass () : null;
+		for (int i = 1; i < length && type != null; ++i) {
+			if (list.get (i).getClass () != type) {
+				type = null;
+			}
+		}
+		return type;
+	}
+	
+	/*
+	 * Copy the sorted values back into the data, firing an event for each
+	 * item that changes
+	 * @param <T>
+	 * @param set The PrimitiveSet of data
+	 * @param values The sorted values
+	 */
+	private static <T> void copy (PrimitiveSet<T> set, List<?> values) {
+		for (int i = 0; i < values.size (); ++i) {
+			if (!values.get (i).equals (set._list.get (i))) {
+				set._list.set (i, (T) values.get (i));
+				fireEvent (set, SortEvent.Type.Write, i, i);
+			}
+		}
+	}
+	
+	/*
+	 * Sort the first length items of the data unboxed
+	 * @param <T>
+	 * @param set The PrimitiveSet of data to sort
+	 * @param length The length of the data
+	 * @return If the data was sorted, false if its type is not supported
+	 */
+	private static <T> boolean primitivesort (PrimitiveSet<T> set, int length) {
+		List<T> list = set._list;
+		Class<?> type = type (list, length);
+		if (type == Integer.class) {
+			int[] values = new int[length];
+			for (int i = 0; i < length; ++i) {
+				values[i] = ((Integer) list.get (i)).intValue ();
+			}
+			checkpoint (set, 0.0);
+			PrimitiveSort.sort (values);
+			checkpoint (set, 0.5);
+			List<Integer> sorted = new ArrayList<Integer> (length);
+			for (int value : values) {
+				sorted.add (Integer.valueOf (value));
+			}
+			copy (set, sorted);
+		} else if (type == Long.class) {
+			long[] values = new long[length];
+			for (int i = 0; i < length; ++i) {
+				values[i] = ((Long) list.get (i)).longValue ();
+			}
+			checkpoint (set, 0.0);
+			PrimitiveSort.sort (values);
+			checkpoint (set, 0.5);
+			List<Long> sorted = new ArrayList<Long> (length);
+			for (long value : values) {
+				sorted.add (Long.valueOf (value));
+			}
+			copy (set, sorted);
+		} else if (type == Float.class) {
+			float[] values = new float[length];
+			for (int i = 0; i < length; ++i) {
+				values[i] = ((Float) list.get (i)).floatValue ();
+			}
+			checkpoint (set, 0.0);
+			PrimitiveSort.sort (values);
+			checkpoint (set, 0.5);
+			List<Float> sorted = new ArrayList<Float> (length);
+			for (float value : values) {
+				sorted.add (Float.valueOf (value));
+			}
+			copy (set, sorted);
+		} else if (type == Double.class) {
+			double[] values = new double[length];
+			for (int i = 0; i < length; ++i) {
+				values[i] = ((Double) list.get (i)).doubleValue ();
+			}
+			checkpoint (set, 0.0);
+			PrimitiveSort.sort (values);
+			checkpoint (set, 0.5);
+			List<Double> sorted = new ArrayList<Double> (length);
+			for (double value : values) {
+				sorted.add (Double.valueOf (value));
+			}
+			copy (set, sorted);
+		} else {
+			return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * @see com.test.guisort.sorts.SortingSet#sort(T[])
+	 */
+	public T[] sort (T[] array) {
+		if (_dirty) {
+			if (!primitivesort (this, array.length)) {
+				QuickSet<T> set = new QuickSet<T> (_list, _listeners);
+				set.block (true);
+				set._unique = _unique;
+				set._cancellation = _cancellation;
+				_delegate = set;
+				array = set.sort (array);
+				_dirty = set._dirty;
+				_delegate = null;
+				return array;
+			}
+			sorted (array.length);
+		}
+		return toSortedArray (array);
+	}
+	
+	/**
+	 * @see com.test.guisort.sorts.SortingSet#progress()
+	 */
+	public double progress () {
+		SortingSet<T> delegate = _delegate;
+		return (delegate != null) ? delegate.progress () : super.progress ();
+	}
+	
+	/**
+	 * @see com.test.guisort.sorts.SortingSet#getSortInformation()
+	 */
+	public String getSortInformation () {
+		return "Block partitioned quick sort of unboxed values\nBest Case: O(n log n)\nAverage Case: O(n log n)\nWorst Case: O(n log n)\nMemory Usage: O(n)\nUnstable";
+	}
+	
+	/**
+	 * Perform an unboxed sort on the given array of data
+	 * @param <T>
+	 * @param array The array of data to sort
+	 * @return The sorted data array
+	 */
+	public static <T> T[] primitiveSort (T[] array) {
+		return primitiveSort (array, null);
+	}
+	/**
+	 * Perform an unboxed sort on the given array of data with the specified
+	 * ISortEventListener
+	 * @param <T>
+	 * @param array The array of data to sort
+	 * @param listener The ISortEventListener to use while sorting
+	 * @return The sorted data array
+	 */
+	public static <T> T[] primitiveSort (T[] array, ISortEventListener<T> listener) {
+		PrimitiveSet<T> set = new PrimitiveSet<T> ();
+		if (listener != null) {
+			set.addSortEventListener (listener);
+		}
+		set.addAll (Arrays.asList (array));
+		return set.sort (array);
+	}
+	
+}
@@ -0,0 +1,704 @@
+/*
+ * PrimitiveSort.java - 
+ * Written By: Nicholas DiPasquale 
+ */
+package com.test.guisort.sorts;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Utilities class that sorts arrays of primitive values without boxing them.
+ * The sort is a quick sort with block partitioning, the items on the wrong
+ * side of the pivot are found a block at a time without branching on the
+ * comparisons and swapped together, so random data costs few branch
+ * mispredictions.  Small ranges are finished with the branchless sorting
+ * networks and a heap sort bounds the worst case to O(n log n).  Floating
+ * point values are sorted as integer keys with the same order.  The sort is
+ * not stable.
+ * @author Nicholas DiPasquale
+ */
+public class PrimitiveSort {
+
+	/* The size of the blocks scanned by the block partition */
+	private static final int BLOCK_SIZE = 64;
+	/* The pseudo-median of 9 selection algorithm threshold */
+	private static final int LARGE_SORT_THRESHOLD = 40;
+	
+	/* The fewest items in each run of a parallel sort */
+	private static final int PARALLEL_RUN_SIZE = 8192;
+	
+	/**
+	 * Merges two adjacent sorted runs of data from the source into the
+	 * destination
+	 * @author Nicholas DiPasquale
+	 */
+	private static class MergeTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		
+		/* The source array holding the sorted runs */
+		private final long[] _source;
+		/* The destination array of the merged run */
+		private final long[] _dest;
+		/* The offset of the first run */
+		private final int _left;
+		/* The offset of the second run */
+		private final int _middle;
+		/* The offset after the second run */
+		private final int _right;
+		
+		/**
+		 * Create a new MergeTask for the given runs
+		 * @param source The source array holding the sorted runs
+		 * @param dest The destination array of the merged run
+		 * @param left The offset of the first run
+		 * @param middle The offset of the second run
+		 * @param right The offset after the second run
+		 */
+		public MergeTask (long[] source, long[] dest, int left, int middle, int right) {
+			_source = source;
+			_dest = dest;
+			_left = left;
+			_middle = middle;
+			_right = right;
+		}
+		
+		/**
+		 * @see java.util.concurrent.RecursiveAction#compute ()
+		 */
+		protected void compute () {
+			int u = _left, v = _middle, i = _left;
+			while (u < _middle && v < _right) {
+				_dest[i++] = (_source[v] < _source[u]) ? _source[v++] : _source[u++];
+			}
+			System.arraycopy (_source, u, _dest, i, _middle - u);
+			System.arraycopy (_source, v, _dest, i + (_middle - u), _right - v);
+		}
+		
+	} /* END: class MergeTask */
+	
+	/**
+	 * Sort the given array of data
+	 * @param array The array of data to sort
+	 * @return The sorted data array
+	 */
+	public static int[] sort (int[] array) {
+		sort (array, 0, array.length);
+		return array;
+	}
+	/**
+	 * Sort a range of the given array of data
+	 * @param array The array of data to sort
+	 * @param from The offset of the first item to sort
+	 * @param to The offset after the last item to sort
+	 * @throws IndexOutOfBoundsException If the range is outside of the array
+	 */
+	public static void sort (int[] array, int from, int to) {
+		checkRange (array.length, from, to);
+		sort (array, from, to, offsets ());
+	}
+	/*
+	 * Sort a range of the given array of data with the given offset buffers
+	 * @param array The array of data to sort
+	 * @param from The offset of the first item to sort
+	 * @param to The offset after the last item to sort
+	 * @param offsets The offset buffers of the block partition
+	 */
+	static void sort (int[] array, int from, int to, int[] offsets) {
+		quicksort (array, from, to, depth (to - from), true, offsets);
+	}
+	
+	/*
+	 * Perform the recursive block partitioned quick sort on a range of data,
+	 * ranges small enough for a sorting network are sorted with one and a
+	 * heap sort is used once the depth limit is reached
+	 * @param array The array of data to sort
+	 * @param left The left offset of the data
+	 * @param right The right offset of the data
+	 * @param depth The partitions left before using the heap sort
+	 * @param leftmost If there are no items before the data to compare with
+	 * @param offsets The offset buffers of the block partition
+	 */
+	private static void quicksort (int[] array, int left, int right, int depth, boolean leftmost, int[] offsets) {
+		while (right - left > SortingNetwork.MAX_SIZE) {
+			if (depth-- == 0) {
+				heapsort (array, left, right);
+				return;
+			}
+			int middle = pivot (array, left, right);
+			if (!leftmost && array[left - 1] == array[middle]) {
+				// The item before the data is not greater than any of it, so
+				// the items equal to the pivot are the least and are skipped
+				left = partitionLeft (array, left, right, middle) + 1;
+				continue;
+			}
+			int p = blockpartition (array, left, right, middle, offsets);
+			quicksort (array, left, p, depth, leftmost, offsets);
+			left = p + 1;
+			leftmost = false;
+		}
+		SortingNetwork.sort (array, left, right);
+	}
+	
+	/*
+	 * Perform a two way block partition of the data around the item at the
+	 * pivot index, the items less than the pivot are moved to the left and
+	 * the rest to the right of the pivot.  The offsets of the misplaced items
+	 * of a block are recorded by adding the result of each comparison to the
+	 * count rather than branching on it, the recorded items are swapped in
+	 * pairs, and the last partial blocks are finished with a classic
+	 * partition.
+	 * @param array The array of data to partition
+	 * @param left The left offset of the data
+	 * @param right The right offset of the data
+	 * @param middle The index of the pivot item
+	 * @param offsets The buffer of the left and right block offsets
+	 * @return The index of the pivot
+	 */
+	private static int blockpartition (int[] array, int left, int right, int middle, int[] offsets) {
+		swap (array, left, middle);
+		int pivot = array[left];
+		
+		int l = left + 1, r = right - 1;
+		int startL = 0, numL = 0, startR = BLOCK_SIZE, numR = 0;
+		while (r - l + 1 > 2 * BLOCK_SIZE) {
+			if (numL == 0) {
+				startL = 0;
+				for (int i = 0; i < BLOCK_SIZE; ++i) {
+					offsets[numL] = i;
+					numL += (array[l + i] >= pivot) ? 1 : 0;
+				}
+			}
+			if (numR == 0) {
+				startR = BLOCK_SIZE;
+				for (int i = 0; i < BLOCK_SIZE; ++i) {
+					offsets[BLOCK_SIZE + numR] = i;
+					numR += (array[r - i] < pivot) ? 1 : 0;
+				}
+			}
+			int num = Math.min (numL, numR);
+			for (int i = 0; i < num; ++i) {
+				swap (array, l + offsets[startL + i], r - offsets[startR + i]);
+			}
+			numL -= num;
+			numR -= num;
+			startL += num;
+			startR += num;
+			if (numL == 0) {
+				l += BLOCK_SIZE;
+			}
+			if (numR == 0) {
+				r -= BLOCK_SIZE;
+			}
+		}
+		
+		while (true) {
+			while (l <= r && array[l] < pivot) {
+				++l;
+			}
+			while (l <= r && array[r] >= pivot) {
+				--r;
+			}
+			if (l > r) {
+				break;
+			}
+			swap (array, l++, r--);
+		}
+		swap (array, left, l - 1);
+		return l - 1;
+	}
+	
+	/*
+	 * Partition the data around the item at the pivot index with the items
+	 * not greater than the pivot moved to the left of it
+	 * @param array The array of data to partition
+	 * @param left The left offset of the data
+	 * @param right The right offset of the data
+	 * @param middle The index of the pivot item
+	 * @return The index of the pivot
+	 */
+	private static int partitionLeft (int[] array, int left, int right, int middle) {
+		swap (array, left, middle);
+		int pivot = array[left];
+		
+		int l = left + 1, r = right - 1;
+		while (true) {
+			while (l <= r && array[l] <= pivot) {
+				++l;
+			}
+			while (l <= r && array[r] > pivot) {
+				--r;
+			}
+			if (l > r) {
+				break;
+			}
+			swap (array, l++, r--);
+		}
+		swap (array, left, l - 1);
+		return l - 1;
+	}
+	
+	/*
+	 * Select a pivot using the median of 3 for a medium data set and the
+	 * pseudo-median of 9 for a large data set
+	 * @param array The array of data
+	 * @param left The left offset of the data
+	 * @param right The right offset of the data
+	 * @return The selected pivot index
+	 */
+	private static int pivot (int[] array, int left, int right) {
+		int l = left, middle = (left + right) >>> 1, n = right - 1;
+		if (right - left > LARGE_SORT_THRESHOLD) {
+			int s = (right - left) / 8;
+			l = medianOf3 (array, l, l + s, l + 2 * s);
+			middle = medianOf3 (array, middle - s, middle, middle + s);
+			n = medianOf3 (array, n - 2 * s, n - s, n);
+		}
+		return medianOf3 (array, l, middle, n);
+	}
+	
+	/*
+	 * Get the index of the median of three items
+	 * @param array The array of data
+	 * @param a The first index into the data
+	 * @param b The second index into the data
+	 * @param c The third index into the data
+	 * @return The index of the median item
+	 */
+	private static int medianOf3 (int[] array, int a, int b, int c) {
+		return (array[a] < array[b])
+			? ((array[b] < array[c]) ? b : (array[a] < array[c]) ? c : a)
+			: ((array[b] > array[c]) ? b : (array[a] > array[c]) ? c : a);
+	}
+	
+	/*
+	 * Perform a heap sort on a range of the data
+	 * @param array The array of data to sort
+	 * @param left The left offset of the data
+	 * @param right The right offset of the data
+	 */
+	private static void heapsort (int[] array, int left, int right) {
+		int length = right - left;
+		for (int i = (length >> 1) - 1; i >= 0; --i) {
+			siftDown (array, left, i, length);
+		}
+		for (int i = length - 1; i > 0; --i) {
+			swap (array, left, left + i);
+			siftDown (array, left, 0, i);
+		}
+	}
+	
+	/*
+	 * Move an item of a heap down until it is not less than its children
+	 * @param array The array of data holding the heap
+	 * @param offset The offset of the heap in the data
+	 * @param index The index of the item in the heap
+	 * @param length The length of the heap
+	 */
+	private static void siftDown (int[] array, int offset, int index, int length) {
+		int item = array[offset + index];
+		for (int child; (child = 2 * index + 1) < length; index = child) {
+			if (child + 1 < length && array[offset + child] < array[offset + child + 1]) {
+				++child;
+			}
+			if (item >= array[offset + child]) {
+				break;
+			}
+			array[offset + index] = array[offset + child];
+		}
+		array[offset + index] = item;
+	}
+	
+	/*
+	 * Swap two items of the data
+	 * @param array The array of data
+	 * @param a The first index into the data
+	 * @param b The second index into the data
+	 */
+	private static void swap (int[] array, int a, int b) {
+		int item = array[a];
+		array[a] = array[b];
+		array[b] = item;
+	}
+	
+	/**
+	 * Sort the given array of data
+	 * @param array The array of data to sort
+	 * @return The sorted data array
+	 */
+	public static long[] sort (long[] array) {
+		sort (array, 0, array.length);
+		return array;
+	}
+	/**
+	 * Sort a range of the given array of data
+	 * @param array The array of data to sort
+	 * @param from The offset of the first item to sort
+	 * @param to The offset after the last item to sort
+	 * @throws IndexOutOfBoundsException If the range is outside of the array
+	 */
+	public static void sort (long[] array, int from, int to) {
+		checkRange (array.length, from, to);
+		sort (array, from, to, offsets ());
+	}
+	/*
+	 * Sort a range of the given array of data with the given offset buffers
+	 * @param array The array of data to sort
+	 * @param from The offset of the first item to sort
+	 * @param to The offset after the last item to sort
+	 * @param offsets The offset buffers of the block partition
+	 */
+	static void sort (long[] array, int from, int to, int[] offsets) {
+		quicksort (array, from, to, depth (to - from), true, offsets);
+	}
+	
+	/*
+	 * Perform the recursive block partitioned quick sort on a range of data,
+	 * ranges small enough for a sorting network are sorted with one and a
+	 * heap sort is used once the depth limit is reached
+	 * @param array The array of data to sort
+	 * @param left The left offset of the data
+	 * @param right The right offset of the data
+	 * @param depth The partitions left before using the heap sort
+	 * @param leftmost If there are no items before the data to compare with
+	 * @param offsets The offset buffers of the block partition
+	 */
+	private static void quicksort (long[] array, int left, int right, int depth, boolean leftmost, int[] offsets) {
+		while (right - left > SortingNetwork.MAX_SIZE) {
+			if (depth-- == 0) {
+				heapsort (array, left, right);
+				return;
+			}
+			int middle = pivot (array, left, right);
+			if (!leftmost && array[left - 1] == array[middle]) {
+				// The item before the data is not greater than any of it, so
+				// the items equal to the pivot are the least and are skipped
+				left = partitionLeft (array, left, right, middle) + 1;
+				continue;
+			}
+			int p = blockpartition (array, left, right, middle, offsets);
+			quicksort (array, left, p, depth, leftmost, offsets);
+			left = p + 1;
+			leftmost = false;
+		}
+		SortingNetwork.sort (array, left, right);
+	}
+	
+	/*
+	 * Perform a two way block partition of the data around the item at the
+	 * pivot index, the items less than the pivot are moved to the left and
+	 * the rest to the right of the pivot.  The offsets of the misplaced items
+	 * of a block are recorded by adding the result of each comparison to the
+	 * count rather than branching on it, the recorded items are swapped in
+	 * pairs, and the last partial blocks are finished with a classic
+	 * partition.
+	 * @param array The array of data to partition
+	 * @param left The left offset of the data
+	 * @param right The right offset of the data
+	 * @param middle The index of the pivot item
+	 * @param offsets The buffer of the left and right block offsets
+	 * @return The index of the pivot
+	 */
+	private static int blockpartition (long[] array, int left, int right, int middle, int[] offsets) {
+		swap (array, left, middle);
+		long pivot = array[left];
+		
+		int l = left + 1, r = right - 1;
+		int startL = 0, numL = 0, startR = BLOCK_SIZE, numR = 0;
+		while (r - l + 1 > 2 * BLOCK_SIZE) {
+			if (numL == 0) {
+				startL = 0;
+				for (int i = 0; i < BLOCK_SIZE; ++i) {
+					offsets[numL] = i;
+					numL += (array[l + i] >= pivot) ? 1 : 0;
+				}
+			}
+			if (numR == 0) {
+				startR = BLOCK_SIZE;
+				for (int i = 0; i < BLOCK_SIZE; ++i) {
+					offsets[BLOCK_SIZE + numR] = i;
+					numR += (array[r - i] < pivot) ? 1 : 0;
+				}
+			}
+			int num = Math.min (numL, numR);
+			for (int i = 0; i < num; ++i) {
+				swap (array, l + offsets[startL + i], r - offsets[startR + i]);
+			}
+			numL -= num;
+			numR -= num;
+			startL += num;
+			startR += num;
+			if (numL == 0) {
+				l += BLOCK_SIZE;
+			}
+			if (numR == 0) {
+				r -= BLOCK_SIZE;
+			}
+		}
+		
+		while (true) {
+			while (l <= r && array[l] < pivot) {
+				++l;
+			}
+			while (l <= r && array[r] >= pivot) {
+				--r;
+			}
+			if (l > r) {
+				break;
+			}
+			swap (array, l++, r--);
+		}
+		swap (array, left, l - 1);
+		return l - 1;
+	}
+	
+	/*
+	 * Partition the data around the item at the pivot index with the items
+	 * not greater than the pivot moved to the left of it
+	 * @param array The array of data to partition
+	 * @param left The left offset of the data
+	 * @param right The right offset of the data
+	 * @param middle The index of the pivot item
+	 * @return The index of the pivot
+	 */
+	private static int partitionLeft (long[] array, int left, int right, int middle) {
+		swap (array, left, middle);
+		long pivot = array[left];
+		
+		int l = left + 1, r = right - 1;
+		while (true) {
+			while (l <= r && array[l] <= pivot) {
+				++l;
+			}
+			while (l <= r && array[r] > pivot) {
+				--r;
+			}
+			if (l > r) {
+				break;
+			}
+			swap (array, l++, r--);
+		}
+		swap (array, left, l - 1);
+		return l - 1;
+	}
+	
+	/*
+	 * Select a pivot using the median of 3 for a medium data set and the
+	 * pseudo-median of 9 for a large data set
+	 * @param array The array of data
+	 * @param left The left offset of the data
+	 * @param right The right offset of the data
+	 * @return The selected pivot index
+	 */
+	private static int pivot (long[] array, int left, int right) {
+		int l = left, middle = (left + right) >>> 1, n = right - 1;
+		if (right - left > LARGE_SORT_THRESHOLD) {
+			int s = (right - left) / 8;
+			l = medianOf3 (array, l, l + s, l + 2 * s);
+			middle = medianOf3 (array, middle - s, middle, middle + s);
+			n = medianOf3 (array, n - 2 * s, n - s, n);
+		}
+		return medianOf3 (array, l, middle, n);
+	}
+	
+	/*
+	 * Get the index of the median of three items
+	 * @param array The array of data
+	 * @param a The first index into the data
+	 * @param b The second index into the data
+	 * @param c The third index into the data
+	 * @return The index of the median item
+	 */
+	private static int medianOf3 (long[] array, int a, int b, int c) {
+		return (array[a] < array[b])
+			? ((array[b] < array[c]) ? b : (array[a] < array[c]) ? c : a)
+			: ((array[b] > array[c]) ? b : (array[a] > array[c]) ? c : a);
+	}
+	
+	/*
+	 * Perform a heap sort on a range of the data
+	 * @param array The array of data to sort
+	 * @param left The left offset of the data
+	 * @param right The right offset of the data
+	 */
+	private static void heapsort (long[] array, int left, int right) {
+		int length = right - left;
+		for (int i = (length >> 1) - 1; i >= 0; --i) {
+			siftDown (array, left, i, length);
+		}
+		for (int i = length - 1; i > 0; --i) {
+			swap (array, left, left + i);
+			siftDown (array, left, 0, i);
+		}
+	}
+	
+	/*
+	 * Move an item of a heap down until it is not less than its children
+	 * @param array The array of data holding the heap
+	 * @param offset The offset of the heap in the data
+	 * @param index The index of the item in the heap
+	 * @param length The length of the heap
+	 */
+	private static void siftDown (long[] array, int offset, int index, int length) {
+		long item = array[offset + index];
+		for (int child; (child = 2 * index + 1) < length; index = child) {
+			if (child + 1 < length && array[offset + child] < array[offset + child + 1]) {
+				++child;
+			}
+			if (item >= array[offset + child]) {
+				break;
+			}
+			array[offset + index] = array[offset + child];
+		}
+		array[offset + index] = item;
+	}
+	
+	/*
+	 * Swap two items of the data
+	 * @param array The array of data
+	 * @param a The first index into the data
+	 * @param b The second index into the data
+	 */
+	private static void swap (long[] array, int a, int b) {
+		long item = array[a];
+		array[a] = array[b];
+		array[b] = item;
+	}
+	
+	/**
+	 * Sort the given array of data on the threads of the given ForkJoinPool.
+	 * Runs of the data are sorted in parallel with the SegmentedSort and then
+	 * merged in pairs, the merges of each level in parallel.
+	 * @param array The array of data to sort
+	 * @param pool The ForkJoinPool to sort on
+	 * @return The sorted data array
+	 */
+	public static long[] parallelSort (long[] array, ForkJoinPool pool) {
+		int runs = Math.min (4 * pool.getParallelism (), array.length / PARALLEL_RUN_SIZE);
+		if (runs <= 1) {
+			return sort (array);
+		}
+		int[] offsets = new int[runs + 1];
+		for (int i = 0; i <= runs; ++i) {
+			offsets[i] = (int) ((long) array.length * i / runs);
+		}
+		SegmentedSort.sort (array, offsets, pool);
+		
+		long[] source = array, dest = new long[array.length];
+		for (int width = 1; width < runs; width *= 2) {
+			final List<MergeTask> merges = new ArrayList<MergeTask> ();
+			for (int i = 0; i < runs; i += 2 * width) {
+				merges.add (new MergeTask (source, dest, offsets[i], offsets[Math.min (i + width, runs)], offsets[Math.min (i + 2 * width, runs)]));
+			}
+			pool.invoke (new RecursiveAction () {
+				private static final long serialVersionUID = 1L;
+				
+				protected void compute () {
+					invokeAll (merges);
+				}
+			});
+			long[] swap = source;
+			source = dest;
+			dest = swap;
+		}
+		if (source != array) {
+			System.arraycopy (source, 0, array, 0, array.length);
+		}
+		return array;
+	}
+	
+	/**
+	 * Sort the given array of data in the order of Arrays.sort, with -0.0
+	 * before 0.0 and NaN last
+	 * @param array The array of data to sort
+	 * @return The sorted data array
+	 */
+	public static float[] sort (float[] array) {
+		sort (array, 0, array.length);
+		return array;
+	}
+	/**
+	 * Sort a range of the given array of data in the order of Arrays.sort,
+	 * the values are mapped to int keys that sort in the same order, sorted
+	 * and mapped back
+	 * @param array The array of data to sort
+	 * @param from The offset of the first item to sort
+	 * @param to The offset after the last item to sort
+	 * @throws IndexOutOfBoundsException If the range is outside of the array
+	 */
+	public static void sort (float[] array, int from, int to) {
+		checkRange (array.length, from, to);
+		int[] keys = new int[to - from];
+		for (int i = 0; i < keys.length; ++i) {
+			int bits = Float.floatToIntBits (array[from + i]);
+			keys[i] = bits ^ ((bits >> 31) & 0x7fffffff);
+		}
+		sort (keys);
+		for (int i = 0; i < keys.length; ++i) {
+			array[from + i] = Float.intBitsToFloat (keys[i] ^ ((keys[i] >> 31) & 0x7fffffff));
+		}
+	}
+	
+	/**
+	 * Sort the given array of data in the order of Arrays.sort, with -0.0
+	 * before 0.0 and NaN last
+	 * @param array The array of data to sort
+	 * @return The sorted data array
+	 */
+	public static double[] sort (double[] array) {
+		sort (array, 0, array.length);
+		return array;
+	}
+	/**
+	 * Sort a range of the given array of data in the order of Arrays.sort,
+	 * the values are mapped to long keys that sort in the same order, sorted
+	 * and mapped back
+	 * @param array The array of data to sort
+	 * @param from The offset of the first item to sort
+	 * @param to The offset after the last item to sort
+	 * @throws IndexOutOfBoundsException If the range is outside of the array
+	 */
+	public static void sort (double[] array, int from, int to) {
+		checkRange (array.length, from, to);
+		long[] keys = new long[to - from];
+		for (int i = 0; i < keys.length; ++i) {
+			long bits = Double.doubleToLongBits (array[from + i]);
+			keys[i] = bits ^ ((bits >> 63) & 0x7fffffffffffffffL);
+		}
+		sort (keys);
+		for (int i = 0; i < keys.length; ++i) {
+			array[from + i] = Double.longBitsToDouble (keys[i] ^ ((keys[i] >> 63) & 0x7fffffffffffffffL));
+		}
+	}
+	
+	/*
+	 * Create the offset buffers used by the block partition
+	 * @return The buffer of the left and right block offsets
+	 */
+	static int[] offsets () {
+		return new int[2 * BLOCK_SIZE];
+	}
+	
+	/*
+	 * Get the depth limit of the quick sort of the given length of data
+	 * @param length The length of the data
+	 * @return The partitions allowed before using the heap sort
+	 */
+	private static int depth (int length) {
+		return 2 * (32 - Integer.numberOfLeadingZeros (length));
+	}
+	
+	/*
+	 * Check that a range lies within an array
+	 * @param length The length of the array
+	 * @param from The offset of the first item of the range
+	 * @param to The offset after the last item of the range
+	 * @throws IndexOutOfBoundsException If the range is outside of the array
+	 */
+	private static void checkRange (int length, int from, int to) {
+		if (from < 0 || to > length || from > to) {
+			throw new IndexOutOfBoundsException ("Range: " + from + " to " + to + ", Length: " + length);
+		}
+	}
+	
+}
@@ -14,10 +14,17 @@ import java.util.*;
  */
 public class QuickSet<T> extends SortingSet<T> {
 
-	/* The insertion sort drop-off threshold size */
+	/* The median of 3 and select drop-off threshold size */
 	private static final int SORT_THRESHOLD = 10;
 	/* The pseudo-median of 9 selection algorithm threshold */
 	private static final int LARGE_SORT_THRESHOLD = 40;
+	/* The size of the blocks scanned by the block partition */
+	private static final int BLOCK_SIZE = 64;
+	
+	/* Flag to partition the data in blocks */
+	private boolean _block;
+	/* The number of items placed by the running sort */
+	private int _finalized;
 	
 	/**
 	 * Create a new instance of an empty QuickSet
@@ -40,29 +47,190 @@ public class QuickSet<T> extends SortingSet<T> {
 	public QuickSet (int initialCapacity) {
 		super (initialCapacity);
 	}
+	/*
+	 * Create a QuickSet that sorts the given data list in place
+	 * @param list The data list to sort
+	 * @param listeners The listeners of the new QuickSet
+	 */
+	QuickSet (List<T> list, List<ISortEventListener<T> > listeners) {
+		super (list, listeners);
+	}
+	
+	/**
+	 * Get the status of the block partition flag
+	 * @return If the QuickSet partitions in blocks
+	 */
+	public boolean block () {
+		return _block;
+	}
+	/**
+	 * Set the status of the block partition flag.  While set the data is
+	 * partitioned a block at a time, the offsets of the misplaced items of a
+	 * block are recorded without branching on the comparisons and the items
+	 * are then swapped together, which avoids most of the branch
+	 * mispredictions of the classic partition on random data.
+	 * @param block The status of the block partition flag
+	 */
+	public void block (boolean block) {
+		_block = block;
+	}
 	
 	/*
-	 * Perform the recursive optimized quick sort with drop-off to insertion
-	 * sort and median of 3 partitioning and pseudo-median of 9 partitioning
+	 * Record the items of the data that are in their final place and check
+	 * for cancellation
+	 * @param <T>
+	 * @param set The QuickSet of data being sorted
+	 * @param length The number of items placed
+	 */
+	private static <T> void finalized (QuickSet<T> set, int length) {
+		set._finalized += length;
+		checkpoint (set, (double) set._finalized / (double) set._list.size ());
+	}
+	
+	/*
+	 * Perform the recursive optimized quick sort with drop-off to sorting
+	 * networks and median of 3 partitioning and pseudo-median of 9 partitioning
 	 * for larger data sets 
 	 * @param <T>
 	 * @param set The QuickSet of data to sort
 	 * @param left The left offset of the data
 	 * @param length The length of the data set to sort
+	 * @param offsets The offset buffers of the block partition or null to
+	 * use the three way partition
 	 */
-	private static <T> void quicksort (QuickSet<T> set, int left, int length) {
-        if (length < SORT_THRESHOLD) {
-        	/*
-            for (int i = left; i < left + length; ++i) {
-                for (int j = i; (j > left) && (((Comparable<? super T>) set._list.get (j - 1)).compareTo (set._list.get (j)) > 0); --j) {
-                	Collections.swap (set._list, j, j - 1);
-                	fireEvent (set, j, j - 1);
-                }
-            }
-            return;
-            */
+	private static <T> void quicksort (QuickSet<T> set, int left, int length, int[] offsets) {
+        if (length <= SortingNetwork.MAX_SIZE) {
+        	SortingNetwork.sort (set, left, left + length);
+        	finalized (set, length);
+        	return;
+        }
+        
+        int middle = pivot (set, left, length);
+        int[] bounds;
+        if (offsets == null || (left > 0 && compare (set._list.get (left - 1), set._list.get (middle)) == 0)) {
+        	// The item before the data is not greater than any of it, so a
+        	// pivot equal to it is the least item and the three way partition
+        	// removes all of its duplicates at once
+        	bounds = partition (set, left, length, middle);
+        } else {
+        	bounds = blockpartition (set, left, length, middle, offsets);
         }
+        finalized (set, bounds[1] - bounds[0]);
         
+        int s, n = left + length;
+        if ((s = bounds[0] - left) > 1) {
+        	quicksort (set, left, s, offsets);
+        } else {
+        	finalized (set, s);
+        }
+        if ((s = n - bounds[1]) > 1) {
+        	quicksort (set, n - s, s, offsets);
+        } else {
+        	finalized (set, s);
+        }
+	}
+	
+	/*
+	 * Perform an introspective quick select that places the item of the given
+	 * rank at its sorted index, with every item before it not greater and
+	 * every item after it not less.  The pivots are chosen the same way as
+	 * the quick sort until the partitions stop shrinking, after which the
+	 * median of medians is used to bound the work to O(n).
+	 * @param <T>
+	 * @param set The QuickSet of data to select from
+	 * @param left The left offset of the data
+	 * @param right The right offset of the data
+	 * @param k The index of the item to select
+	 */
+	private static <T> void quickselect (QuickSet<T> set, int left, int right, int k) {
+		int depth = 2 * (32 - Integer.numberOfLeadingZeros (right - left));
+		while (right - left >= SORT_THRESHOLD) {
+			int length = right - left;
+			int middle = (depth-- > 0) ? pivot (set, left, length) : medianOfMedians (set, left, right);
+			int[] bounds = partition (set, left, length, middle);
+			if (k < bounds[0]) {
+				right = bounds[0];
+			} else if (k >= bounds[1]) {
+				left = bounds[1];
+			} else {
+				return;
+			}
+		}
+		SortingNetwork.sort (set, left, right);
+	}
+	
+	/*
+	 * Perform a quick select of several ranks at once, each partition splits
+	 * the ranks between its two sides so the ranks share the partitioning
+	 * work of the levels above them
+	 * @param <T>
+	 * @param set The QuickSet of data to select from
+	 * @param left The left offset of the data
+	 * @param right The right offset of the data
+	 * @param ranks The sorted indices of the items to select
+	 * @param from The first rank within the data
+	 * @param to The offset after the last rank within the data
+	 * @param depth The partitions left before using the median of medians
+	 */
+	private static <T> void multiselect (QuickSet<T> set, int left, int right, int[] ranks, int from, int to, int depth) {
+		while (from < to) {
+			if (to - from == 1) {
+				quickselect (set, left, right, ranks[from]);
+				return;
+			}
+			int length = right - left;
+			if (length < SORT_THRESHOLD) {
+				SortingNetwork.sort (set, left, right);
+				return;
+			}
+			int middle = (depth-- > 0) ? pivot (set, left, length) : medianOfMedians (set, left, right);
+			int[] bounds = partition (set, left, length, middle);
+			int lo = from;
+			while (lo < to && ranks[lo] < bounds[0]) {
+				++lo;
+			}
+			int hi = lo;
+			while (hi < to && ranks[hi] < bounds[1]) {
+				++hi;
+			}
+			multiselect (set, left, bounds[0], ranks, from, lo, depth);
+			left = bounds[1];
+			from = hi;
+		}
+	}
+	
+	/*
+	 * Select a pivot using the median of the medians of groups of five, the
+	 * group medians are moved to the front of the data while selecting
+	 * @param <T>
+	 * @param set The QuickSet to select a pivot
+	 * @param left The left offset of the data
+	 * @param right The right offset of the data
+	 * @return The selected pivot index
+	 */
+	private static <T> int medianOfMedians (QuickSet<T> set, int left, int right) {
+		int medians = left;
+		for (int i = left; i < right; i += 5) {
+			int end = Math.min (i + 5, right);
+			SortingNetwork.sort (set, i, end);
+			Collections.swap (set._list, medians, i + ((end - i) >> 1));
+			fireEvent (set, medians++, i + ((end - i) >> 1));
+		}
+		int middle = left + ((medians - left) >> 1);
+		quickselect (set, left, medians, middle);
+		return middle;
+	}
+	
+	/*
+	 * Select a pivot using the median of 3 for a medium data set and the
+	 * pseudo-median of 9 for a large data set
+	 * @param <T>
+	 * @param set The QuickSet to select a pivot
+	 * @param left The left offset of the data
+	 * @param length The length of the data
+	 * @return The selected pivot index
+	 */
+	private static <T> int pivot (QuickSet<T> set, int left, int length) {
         int middle = left + (length >> 1);
         if (length > SORT_THRESHOLD) {
         	int l = left;
@@ -75,7 +243,23 @@ public class QuickSet<T> extends SortingSet<T> {
         	}
         	middle = medianOf3 (set, l, middle, n);
         }
-        
+        return middle;
+	}
+	
+	/*
+	 * Perform a three way partition of the data around the item at the pivot
+	 * index, the items less than the pivot are moved to the left and the
+	 * items greater than the pivot are moved to the right of the items equal
+	 * to it
+	 * @param <T>
+	 * @param set The QuickSet of data to partition
+	 * @param left The left offset of the data
+	 * @param length The length of the data set to partition
+	 * @param middle The index of the pivot item
+	 * @return The offset of the first item equal to the pivot and the offset
+	 * of the first item greater than the pivot
+	 */
+	private static <T> int[] partition (QuickSet<T> set, int left, int length, int middle) {
         T pivot = set._list.get (middle);
         
         int a = left, b = a, c = left + length - 1, d = c;
@@ -107,12 +291,83 @@ public class QuickSet<T> extends SortingSet<T> {
         s = Math.min (d - c, n - d - 1);
         swap (set, b, n - s, s);
         
-        if ((s = b - a) > 1) {
-        	quicksort (set, left, s);
-        }
-        if ((s = d - c) > 1) {
-        	quicksort (set, n - s, s);
-        }
+        return new int[] { left + (b - a), n - (d - c) };
+	}
+	
+	/*
+	 * Perform a two way block partition of the data around the item at the
+	 * pivot index, the items less than the pivot are moved to the left and
+	 * the rest to the right of the pivot.  Blocks are scanned from both ends,
+	 * the offsets of the misplaced items are recorded by adding the result of
+	 * each comparison to the count rather than branching on it, and the
+	 * recorded items are swapped in pairs.  The last partial blocks are
+	 * finished with a classic partition.
+	 * @param <T>
+	 * @param set The QuickSet of data to partition
+	 * @param left The left offset of the data
+	 * @param length The length of the data set to partition
+	 * @param middle The index of the pivot item
+	 * @param offsets The buffer of the left and right block offsets
+	 * @return The offset of the pivot and the offset after it
+	 */
+	private static <T> int[] blockpartition (QuickSet<T> set, int left, int length, int middle, int[] offsets) {
+		List<T> list = set._list;
+		Collections.swap (list, left, middle);
+		fireEvent (set, left, middle);
+		T pivot = list.get (left);
+		
+		int l = left + 1, r = left + length - 1;
+		int startL = 0, numL = 0, startR = BLOCK_SIZE, numR = 0;
+		while (r - l + 1 > 2 * BLOCK_SIZE) {
+			if (numL == 0) {
+				startL = 0;
+				for (int i = 0; i < BLOCK_SIZE; ++i) {
+					offsets[numL] = i;
+					numL += (compare (list.get (l + i), pivot) >= 0) ? 1 : 0;
+				}
+			}
+			if (numR == 0) {
+				startR = BLOCK_SIZE;
+				for (int i = 0; i < BLOCK_SIZE; ++i) {
+					offsets[BLOCK_SIZE + numR] = i;
+					numR += (compare (list.get (r - i), pivot) < 0) ? 1 : 0;
+				}
+			}
+			int num = Math.min (numL, numR);
+			for (int i = 0; i < num; ++i) {
+				int a = l + offsets[startL + i], b = r - offsets[startR + i];
+				Collections.swap (list, a, b);
+				fireEvent (set, a, b);
+			}
+			numL -= num;
+			numR -= num;
+			startL += num;
+			startR += num;
+			if (numL == 0) {
+				l += BLOCK_SIZE;
+			}
+			if (numR == 0) {
+				r -= BLOCK_SIZE;
+			}
+		}
+		
+		while (true) {
+			while (l <= r && compare (list.get (l), pivot) < 0) {
+				++l;
+			}
+			while (l <= r && compare (list.get (r), pivot) >= 0) {
+				--r;
+			}
+			if (l > r) {
+				break;
+			}
+			Collections.swap (list, l++, r--);
+			fireEvent (set, l - 1, r + 1);
+		}
+		
+		Collections.swap (list, left, l - 1);
+		fireEvent (set, left, l - 1);
+		return new int[] { l - 1, l };
 	}
 	
 	/*
@@ -172,8 +427,68 @@ public class QuickSet<T> extends SortingSet<T> {
 	 * @see com.test.guisort.sorts.SortingSet#sort(T[])
 	 */
 	public T[] sort (T[] array) {
-		quicksort (this, 0, array.length);
-		return toArray (array);
+		if (_dirty) {
+			_finalized = 0;
+			quicksort (this, 0, array.length, _block ? new int[2 * BLOCK_SIZE] : null);
+			sorted (array.length);
+		}
+		return toSortedArray (array);
+	}
+	
+	/**
+	 * Select the item of the given rank with an introspective quick select in
+	 * expected O(n) time.  The data is left partitioned around the item.
+	 * @see com.test.guisort.sorts.SortingSet#select(int)
+	 */
+	public T select (int k) {
+		if (k < 0 || k >= _list.size ()) {
+			throw new IndexOutOfBoundsException ("Index: " + k + ", Size: " + _list.size ());
+		}
+		if (_dirty) {
+			quickselect (this, 0, _list.size (), k);
+		}
+		return _list.get (k);
+	}
+	
+	/**
+	 * Select the items of each of the given ranks with a single recursive
+	 * quick select in expected O(n) time.  The data is left partitioned
+	 * around each of the items.
+	 * @see com.test.guisort.sorts.SortingSet#select(int[], T[])
+	 */
+	public T[] select (int[] ranks, T[] array) {
+		if (_dirty) {
+			int[] sorted = ranks.clone ();
+			Arrays.sort (sorted);
+			if (sorted.length > 0 && (sorted[0] < 0 || sorted[sorted.length - 1] >= _list.size ())) {
+				throw new IndexOutOfBoundsException ("Size: " + _list.size ());
+			}
+			multiselect (this, 0, _list.size (), sorted, 0, sorted.length, 2 * (32 - Integer.numberOfLeadingZeros (_list.size ())));
+		}
+		if (array.length < ranks.length) {
+			array = (T[]) java.lang.reflect.Array.newInstance (array.getClass ().getComponentType (), ranks.length);
+		}
+		for (int i = 0; i < ranks.length; ++i) {
+			array[i] = _list.get (ranks[i]);
+		}
+		return array;
+	}
+	
+	/**
+	 * Sort only the k smallest items with a quick select followed by a quick
+	 * sort of the selected items in O(n + k log k) time
+	 * @see com.test.guisort.sorts.SortingSet#partialSort(int, T[])
+	 */
+	public T[] partialSort (int k, T[] array) {
+		k = Math.min (k, _list.size ());
+		if (_dirty) {
+			if (k < _list.size ()) {
+				quickselect (this, 0, _list.size (), k);
+			}
+			_finalized = _list.size () - k;
+			quicksort (this, 0, k, _block ? new int[2 * BLOCK_SIZE] : null);
+		}
+		return _list.subList (0, k).toArray (array);
 	}
 	
 	/**
@@ -0,0 +1,341 @@
+/*
+ * SegmentedSort.java - 
+ * Written By: Nicholas DiPasquale 
+ */
+package com.test.guisort.sorts;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Utilities class that sorts many small data sets in a single call.  The
+ * data sets are segments of one flat buffer, segment i holding the items from
+ * offsets[i] up to offsets[i + 1], and each segment is sorted in place on its
+ * own.  The sorting engine and its scratch space are created once for each
+ * run of segments rather than once per segment, so sorting a segment costs
+ * little more than its comparisons.  Runs of segments may be sorted in
+ * parallel on a ForkJoinPool.  Object segments are sorted with the PdqSet
+ * and primitive segments with the PrimitiveSort, neither sort is stable.
+ * @author Nicholas DiPasquale
+ */
+public class SegmentedSort {
+
+	/* The fewest items in a run of segments that is split between threads */
+	private static final int PARALLEL_THRESHOLD = 16384;
+	
+	/**
+	 * Sorts a run of segments, splitting runs with many items in two for the
+	 * ForkJoinPool
+	 * @author Nicholas DiPasquale
+	 */
+	private static abstract class SegmentTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		
+		/* The offsets of the segments in the buffer */
+		protected final int[] _offsets;
+		/* The first segment of the run */
+		protected final int _from;
+		/* The segment after the last segment of the run */
+		protected final int _to;
+		
+		/**
+		 * Create a new SegmentTask for the given run of segments
+		 * @param offsets The offsets of the segments in the buffer
+		 * @param from The first segment of the run
+		 * @param to The segment after the last segment of the run
+		 */
+		public SegmentTask (int[] offsets, int from, int to) {
+			_offsets = offsets;
+			_from = from;
+			_to = to;
+		}
+		
+		/**
+		 * @see java.util.concurrent.RecursiveAction#compute ()
+		 */
+		protected void compute () {
+			if (_to - _from > 1 && _offsets[_to] - _offsets[_from] > PARALLEL_THRESHOLD) {
+				/* Split at the segment that holds the middle item */
+				int target = _offsets[_from] + ((_offsets[_to] - _offsets[_from]) >> 1);
+				int middle = _from + 1;
+				while (middle < _to - 1 && _offsets[middle] < target) {
+					++middle;
+				}
+				invokeAll (create (_from, middle), create (middle, _to));
+			} else {
+				sortSegments ();
+			}
+		}
+		
+		/**
+		 * Create a task for part of the run of segments
+		 * @param from The first segment of the part
+		 * @param to The segment after the last segment of the part
+		 * @return The SegmentTask for the part
+		 */
+		protected abstract SegmentTask create (int from, int to);
+		
+		/**
+		 * Sort each segment of the run on the calling thread
+		 */
+		protected abstract void sortSegments ();
+		
+	} /* END: class SegmentTask */
+	
+	/**
+	 * Sorts a run of segments of objects with a single PdqSet
+	 * @author Nicholas DiPasquale
+	 * @param <T>
+	 */
+	private static class ObjectTask<T> extends SegmentTask {
+		private static final long serialVersionUID = 1L;
+		
+		/* The buffer of items */
+		private final T[] _buffer;
+		
+		/**
+		 * Create a new ObjectTask for the given run of segments
+		 * @param buffer The buffer of items
+		 * @param offsets The offsets of the segments in the buffer
+		 * @param from The first segment of the run
+		 * @param to The segment after the last segment of the run
+		 */
+		public ObjectTask (T[] buffer, int[] offsets, int from, int to) {
+			super (offsets, from, to);
+			_buffer = buffer;
+		}
+		
+		/**
+		 * @see com.test.guisort.sorts.SegmentedSort.SegmentTask#create(int, int)
+		 */
+		protected SegmentTask create (int from, int to) {
+			return new ObjectTask<T> (_buffer, _offsets, from, to);
+		}
+		
+		/**
+		 * @see com.test.guisort.sorts.SegmentedSort.SegmentTask#sortSegments()
+		 */
+		protected void sortSegments () {
+			PdqSet<T> set = new PdqSet<T> (Arrays.asList (_buffer), new LinkedList<ISortEventListener<T> > ());
+			for (int i = _from; i < _to; ++i) {
+				if (_offsets[i + 1] - _offsets[i] > 1) {
+					PdqSet.pdqsort (set, _offsets[i], _offsets[i + 1]);
+				}
+			}
+		}
+		
+	} /* END: class ObjectTask */
+	
+	/**
+	 * Sorts a run of segments of ints with a single set of offset buffers
+	 * @author Nicholas DiPasquale
+	 */
+	private static class IntTask extends SegmentTask {
+		private static final long serialVersionUID = 1L;
+		
+		/* The buffer of items */
+		private final int[] _buffer;
+		
+		/**
+		 * Create a new IntTask for the given run of segments
+		 * @param buffer The buffer of items
+		 * @param offsets The offsets of the segments in the buffer
+		 * @param from The first segment of the run
+		 * @param to The segment after the last segment of the run
+		 */
+		public IntTask (int[] buffer, int[] offsets, int from, int to) {
+			super (offsets, from, to);
+			_buffer = buffer;
+		}
+		
+		/**
+		 * @see com.test.guisort.sorts.SegmentedSort.SegmentTask#create(int, int)
+		 */
+		protected SegmentTask create (int from, int to) {
+			return new IntTask (_buffer, _offsets, from, to);
+		}
+		
+		/**
+		 * @see com.test.guisort.sorts.SegmentedSort.SegmentTask#sortSegments()
+		 */
+		protected void sortSegments () {
+			int[] scratch = PrimitiveSort.offsets ();
+			for (int i = _from; i < _to; ++i) {
+				if (_offsets[i + 1] - _offsets[i] > 1) {
+					PrimitiveSort.sort (_buffer, _offsets[i], _offsets[i + 1], scratch);
+				}
+			}
+		}
+		
+	} /* END: class IntTask */
+	
+	/**
+	 * Sorts a run of segments of longs with a single set of offset buffers
+	 * @author Nicholas DiPasquale
+	 */
+	private static class LongTask extends SegmentTask {
+		private static final long serialVersionUID = 1L;
+		
+		/* The buffer of items */
+		private final long[] _buffer;
+		
+		/**
+		 * Create a new LongTask for the given run of segments
+		 * @param buffer The buffer of items
+		 * @param offsets The offsets of the segments in the buffer
+		 * @param from The first segment of the run
+		 * @param to The segment after the last segment of the run
+		 */
+		public LongTask (long[] buffer, int[] offsets, int from, int to) {
+			super (offsets, from, to);
+			_buffer = buffer;
+		}
+		
+		/**
+		 * @see com.test.guisort.sorts.SegmentedSort.SegmentTask#create(int, int)
+		 */
+		protected SegmentTask create (int from, int to) {
+			return new LongTask (_buffer, _offsets, from, to);
+		}
+		
+		/**
+		 * @see com.test.guisort.sorts.SegmentedSort.SegmentTask#sortSegments()
+		 */
+		protected void sortSegments () {
+			int[] scratch = PrimitiveSort.offsets ();
+			for (int i = _from; i < _to; ++i) {
+				if (_offsets[i + 1] - _offsets[i] > 1) {
+					PrimitiveSort.sort (_buffer, _offsets[i], _offsets[i + 1], scratch);
+				}
+			}
+		}
+		
+	} /* END: class LongTask */
+	
+	/**
+	 * Sort each segment of the given buffer of items on the calling thread
+	 * @param <T>
+	 * @param buffer The buffer of items
+	 * @param offsets The offsets of the segments, one more than the number of
+	 * segments
+	 * @return The buffer of items with each segment sorted
+	 * @throws IllegalArgumentException If the offsets are not ascending
+	 * offsets into the buffer
+	 */
+	public static <T> T[] sort (T[] buffer, int[] offsets) {
+		return sort (buffer, offsets, null);
+	}
+	/**
+	 * Sort each segment of the given buffer of items, sharing the segments
+	 * between the threads of the given ForkJoinPool
+	 * @param <T>
+	 * @param buffer The buffer of items
+	 * @param offsets The offsets of the segments, one more than the number of
+	 * segments
+	 * @param pool The ForkJoinPool to sort on or null to sort on the calling
+	 * thread
+	 * @return The buffer of items with each segment sorted
+	 * @throws IllegalArgumentException If the offsets are not ascending
+	 * offsets into the buffer
+	 */
+	public static <T> T[] sort (T[] buffer, int[] offsets, ForkJoinPool pool) {
+		run (new ObjectTask<T> (buffer, offsets, 0, segments (buffer.length, offsets)), pool);
+		return buffer;
+	}
+	
+	/**
+	 * Sort each segment of the given buffer of items on the calling thread
+	 * @param buffer The buffer of items
+	 * @param offsets The offsets of the segments, one more than the number of
+	 * segments
+	 * @return The buffer of items with each segment sorted
+	 * @throws IllegalArgumentException If the offsets are not ascending
+	 * offsets into the buffer
+	 */
+	public static int[] sort (int[] buffer, int[] offsets) {
+		return sort (buffer, offsets, null);
+	}
+	/**
+	 * Sort each segment of the given buffer of items, sharing the segments
+	 * between the threads of the given ForkJoinPool
+	 * @param buffer The buffer of items
+	 * @param offsets The offsets of the segments, one more than the number of
+	 * segments
+	 * @param pool The ForkJoinPool to sort on or null to sort on the calling
+	 * thread
+	 * @return The buffer of items with each segment sorted
+	 * @throws IllegalArgumentException If the offsets are not ascending
+	 * offsets into the buffer
+	 */
+	public static int[] sort (int[] buffer, int[] offsets, ForkJoinPool pool) {
+		run (new IntTask (buffer, offsets, 0, segments (buffer.length, offsets)), pool);
+		return buffer;
+	}
+	
+	/**
+	 * Sort each segment of the given buffer of items on the calling thread
+	 * @param buffer The buffer of items
+	 * @param offsets The offsets of the segments, one more than the number of
+	 * segments
+	 * @return The buffer of items with each segment sorted
+	 * @throws IllegalArgumentException If the offsets are not ascending
+	 * offsets into the buffer
+	 */
+	public static long[] sort (long[] buffer, int[] offsets) {
+		return sort (buffer, offsets, null);
+	}
+	/**
+	 * Sort each segment of the given buffer of items, sharing the segments
+	 * between the threads of the given ForkJoinPool
+	 * @param buffer The buffer of items
+	 * @param offsets The offsets of the segments, one more than the number of
+	 * segments
+	 * @param pool The ForkJoinPool to sort on or null to sort on the calling
+	 * thread
+	 * @return The buffer of items with each segment sorted
+	 * @throws IllegalArgumentException If the offsets are not ascending
+	 * offsets into the buffer
+	 */
+	public static long[] sort (long[] buffer, int[] offsets, ForkJoinPool pool) {
+		run (new LongTask (buffer, offsets, 0, segments (buffer.length, offsets)), pool);
+		return buffer;
+	}
+	
+	/*
+	 * Run a task on the given ForkJoinPool, or on the calling thread without
+	 * splitting it if there is no pool
+	 * @param task The task to run
+	 * @param pool The ForkJoinPool to run the task on or null
+	 */
+	private static void run (SegmentTask task, ForkJoinPool pool) {
+		if (pool != null) {
+			pool.invoke (task);
+		} else {
+			task.sortSegments ();
+		}
+	}
+	
+	/*
+	 * Check the segment offsets against the buffer
+	 * @param length The length of the buffer
+	 * @param offsets The offsets of the segments
+	 * @return The number of segments
+	 * @throws IllegalArgumentException If the offsets are not ascending
+	 * offsets into the buffer
+	 */
+	private static int segments (int length, int[] offsets) {
+		if (offsets.length == 0) {
+			return 0;
+		}
+		if (offsets[0] < 0 || offsets[offsets.length - 1] > length) {
+			throw new IllegalArgumentException ("Offsets: " + offsets[0] + " to " + offsets[offsets.length - 1] + ", Length: " + length);
+		}
+		for (int i = 1; i < offsets.length; ++i) {
+			if (offsets[i] < offsets[i - 1]) {
+				throw new IllegalArgumentException ("Offset " + i + ": " + offsets[i] + " is before " + offsets[i - 1]);
+			}
+		}
+		return offsets.length - 1;
+	}
+	
+}
@@ -46,7 +46,10 @@ public class SelectionSet<T> extends SortingSet<T> {
 	 */
 	private static <T> void selectionsort (SelectionSet<T> set, int left, int right) {
 		int min;
+		double length = right - left;
 		for (int i = left; i < right - 1; ++i) {
+			double remaining = (right - i) / length;
+			checkpoint (set, 1.0 - remaining * remaining);
 			min = i;
 			for (int j = i + 1; j < right; ++j) {
 				if (((Comparable<? super T>) set._list.get (j)).compareTo (set._list.get (min)) <  0) {
@@ -62,8 +65,11 @@ public class SelectionSet<T> extends SortingSet<T> {
 	 * @see com.test.guisort.sorts.SortingSet#sort(T[])
 	 */
 	public T[] sort (T[] array) {
-        selectionsort (this, 0, array.length);
-		return toArray (array);
+		if (_dirty) {
+			selectionsort (this, 0, array.length);
+			sorted (array.length);
+		}
+		return toSortedArray (array);
 	}
 	
 	/**
@@ -14,11 +14,90 @@ import java.util.*;
  */
 public class ShellSet<T> extends SortingSet<T> {
 
+	/* The start of the Ciura gap sequence, found empirically */
+	private static final int[] CIURA_GAPS = new int[] {
+		1, 4, 10, 23, 57, 132, 301, 701, 1750,
+	};
+	
+	/**
+	 * Shell sort gap sequence enumeration
+	 * @author Nicholas DiPasquale
+	 */
+	public enum Gaps {
+		Ciura, Tokuda, Sedgewick, Pratt, Gonnet;
+		
+		/**
+		 * Generate the gap sequence for a data set of the given length
+		 * @param length The length of the data set to sort
+		 * @return The gaps that are less than the length in decreasing order
+		 * ending with a gap of 1
+		 */
+		public int[] gaps (int length) {
+			List<Integer> gaps = new ArrayList<Integer> ();
+			switch (this) {
+			default:
+			case Ciura: {
+				/* Extended past the measured gaps by a factor of 2.25 */
+				long gap = 1;
+				for (int i = 0; gap < length; ++i) {
+					gaps.add (0, Integer.valueOf ((int) gap));
+					gap = (i + 1 < CIURA_GAPS.length) ? CIURA_GAPS[i + 1] : (long) (gap * 2.25);
+				}
+			} break;
+			case Tokuda: {
+				/* ceil ((9 * (9/4)^k - 4) / 5) */
+				double power = 1.0;
+				for (long gap = 1; gap < length; gap = (long) Math.ceil ((9.0 * power - 4.0) / 5.0)) {
+					gaps.add (0, Integer.valueOf ((int) gap));
+					power *= 2.25;
+				}
+			} break;
+			case Sedgewick: {
+				/* 4^k + 3 * 2^(k-1) + 1 */
+				long gap = 1;
+				for (int k = 1; gap < length; ++k) {
+					gaps.add (0, Integer.valueOf ((int) gap));
+					gap = (1L << (2 * k)) + 3L * (1L << (k - 1)) + 1L;
+				}
+			} break;
+			case Pratt: {
+				/* All of the 2^p * 3^q values */
+				for (long three = 1; three < length; three *= 3) {
+					for (long gap = three; gap < length; gap *= 2) {
+						gaps.add (Integer.valueOf ((int) gap));
+					}
+				}
+				Collections.sort (gaps, Collections.reverseOrder ());
+			} break;
+			case Gonnet: {
+				/* The length divided by 2.2 for each pass */
+				for (int gap = length / 2; gap > 0; gap = ((gap == 2) ? 1 : (int) Math.round (gap / 2.2))) {
+					gaps.add (Integer.valueOf (gap));
+				}
+			} break;
+			}
+			
+			if (gaps.isEmpty () || gaps.get (gaps.size () - 1).intValue () != 1) {
+				gaps.add (Integer.valueOf (1));
+			}
+			int[] result = new int[gaps.size ()];
+			for (int i = 0; i < result.length; ++i) {
+				result[i] = gaps.get (i).intValue ();
+			}
+			return result;
+		}
+		
+	} /* END: enum Gaps */
+	
+	/* The gap sequence used to sort */
+	private Gaps _gaps;
+	
 	/**
 	 * Create a new instance of an empty ShellSet
 	 */
 	public ShellSet () {
 		super ();
+		_gaps = Gaps.Ciura;
 	}
 	/**
 	 * Create a new instance of a ShellSet that initially contains the items
@@ -27,6 +106,7 @@ public class ShellSet<T> extends SortingSet<T> {
 	 */
 	public ShellSet (Collection<T> collection) {
 		super (collection);
+		_gaps = Gaps.Ciura;
 	}
 	/**
 	 * Create a new instance of a ShellSet with the given initial capacity
@@ -34,6 +114,23 @@ public class ShellSet<T> extends SortingSet<T> {
 	 */
 	public ShellSet (int initialCapacity) {
 		super (initialCapacity);
+		_gaps = Gaps.Ciura;
+	}
+	
+	/**
+	 * Get the gap sequence used by the ShellSet
+	 * @return The gap sequence used to sort
+	 */
+	public Gaps gaps () {
+		return _gaps;
+	}
+	/**
+	 * Set the gap sequence used by the ShellSet, the Ciura sequence is the
+	 * default as it made the fewest comparisons in Ciura's measurements
+	 * @param gaps The gap sequence used to sort
+	 */
+	public void gaps (Gaps gaps) {
+		_gaps = gaps;
 	}
 	
 	/*
@@ -42,13 +139,22 @@ public class ShellSet<T> extends SortingSet<T> {
 	 * @param set The ShellSet to perform the sort
 	 * @param left The left offset of the data
 	 * @param right The right offset of the data
+	 * @param gaps The gap sequence for the data in decreasing order
 	 */
-	private static <T> void shellsort (ShellSet<T> set, int left, int right) {
-		for (int increment = right / 2; increment > left; increment = ((increment == 2) ? 1 : (int) Math.round (increment / 2.2))) {
-			for (int i = increment; i < right; ++i) {
-				for (int j = i; j >= increment && ((Comparable<? super T>) set._list.get (j - increment)).compareTo (set._list.get (j)) > 0; j -= increment) {
-					Collections.swap(set._list, j - increment, j);
-					fireEvent (set, j - increment, j);
+	private static <T> void shellsort (ShellSet<T> set, int left, int right, int[] gaps) {
+		for (int g = 0; g < gaps.length; ++g) {
+			checkpoint (set, (double) g / (double) gaps.length);
+			int increment = gaps[g];
+			for (int i = left + increment; i < right; ++i) {
+				T item = set._list.get (i);
+				int j = i;
+				for (; j - increment >= left && compare (set._list.get (j - increment), item) > 0; j -= increment) {
+					set._list.set (j, set._list.get (j - increment));
+					fireEvent (set, SortEvent.Type.Write, j, j - increment);
+				}
+				if (j != i) {
+					set._list.set (j, item);
+					fireEvent (set, SortEvent.Type.Write, j, i);
 				}
 			}
 		}
@@ -58,8 +164,11 @@ public class ShellSet<T> extends SortingSet<T> {
 	 * @see com.test.guisort.sorts.SortingSet#sort(T[])
 	 */
 	public T[] sort (T[] array) {
-		shellsort (this, 0, array.length);
-		return toArray (array);
+		if (_dirty) {
+			shellsort (this, 0, array.length, _gaps.gaps (array.length));
+			sorted (array.length);
+		}
+		return toSortedArray (array);
 	}
 	
 	/**
@@ -0,0 +1,47 @@
+/*
+ * SortAlgorithm.java - 
+ * Written By: Nicholas DiPasquale 
+ */
+package com.test.guisort.sorts;
+
+/**
+ * The sorting algorithms available by name, each creates an empty
+ * SortingSet that sorts with the algorithm
+ * @author Nicholas DiPasquale
+ */
+public enum SortAlgorithm {
+	BubbleSort, InsertionSort, SelectionSort, ShellSort,
+	HeapSort, MergeSort, QuickSort, PdqSort, PrimitiveSort, Auto;
+	
+	/**
+	 * Create an empty SortingSet that sorts with the algorithm
+	 * @param <T>
+	 * @return A new SortingSet of the algorithm
+	 */
+	public <T> SortingSet<T> createSet () {
+		switch (this) {
+		default:
+		case BubbleSort:
+			return new BubbleSet<T> ();
+		case InsertionSort:
+			return new InsertionSet<T> ();
+		case SelectionSort:
+			return new SelectionSet<T> ();
+		case ShellSort:
+			return new ShellSet<T> ();
+		case HeapSort:
+			return new HeapSet<T> ();
+		case MergeSort:
+			return new MergeSet<T> ();
+		case QuickSort:
+			return new QuickSet<T> ();
+		case PdqSort:
+			return new PdqSet<T> ();
+		case PrimitiveSort:
+			return new PrimitiveSet<T> ();
+		case Auto:
+			return new AutoSet<T> ();
+		}
+	}
+	
+}
@@ -8,15 +8,39 @@ import java.util.*;
 
 /**
  * Event data for the ISortEventListener, this object contains the Set that the
- * event was called on and the indices of the swap 
+ * event was called on, the type of the change and the indices it changed.  A
+ * listener can mirror the data from the events alone: a Swap exchanges the
+ * items at both indices, a Write stores the value at the first index and a
+ * Move takes the item at the second index to the first index, shifting the
+ * items between them by one.
  * @author Nicholas DiPasquale
  * @param <T>
  */
 public class SortEvent<T> extends EventObject {
 	private static final long serialVersionUID = 1L;
 	
+	/**
+	 * The type of change made to the data
+	 * @author Nicholas DiPasquale
+	 */
+	public enum Type {
+		/** The items at both indices are exchanged */
+		Swap,
+		/** The value is written at the first index, copied from the second */
+		Write,
+		/**
+		 * The item at the second index is moved to the first index and the
+		 * items between them shift by one
+		 */
+		Move;
+	} /* END: enum Type */
+	
 	/* The Set that holds the SortEvent data */
 	private Set<T> _set;
+	/* The type of change */
+	private Type _type;
+	/* The value written or moved, null for a Swap */
+	private T _value;
 	/* The first swapped index */
 	private int _index0;
 	/* The second swapped index */
@@ -29,10 +53,23 @@ public class SortEvent<T> extends EventObject {
 	 * @param index1 The second swapped index
 	 */
 	public SortEvent (Set<T> source, int index0, int index1) {
+		this (source, Type.Swap, index0, index1, null);
+	}
+	/**
+	 * Creates a new SortEvent instance of the given type
+	 * @param source The Set that holds the SortEvent data
+	 * @param type The type of change
+	 * @param index0 The first index of the change
+	 * @param index1 The second index of the change
+	 * @param value The value written or moved to the first index
+	 */
+	public SortEvent (Set<T> source, Type type, int index0, int index1, T value) {
 		super (source);
 		_set = source;
+		_type = type;
 		_index0 = index0;
 		_index1 = index1;
+		_value = value;
 	}
 	
 	/**
@@ -43,6 +80,22 @@ public class SortEvent<T> extends EventObject {
 		return _set;
 	}
 	
+	/**
+	 * Returns the type of change made to the data
+	 * @return The type of change
+	 */
+	public Type getType () {
+		return _type;
+	}
+	
+	/**
+	 * Returns the value written or moved to the first index
+	 * @return The value at the first index, or null for a Swap
+	 */
+	public T getValue () {
+		return _value;
+	}
+	
 	/**
 	 * Returns the SortEvent Set as an array
 	 * @param array An array to store the Set
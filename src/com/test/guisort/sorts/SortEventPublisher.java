@@ -0,0 +1,291 @@
+/*
+ * SortEventPublisher.java - 
+ * Written By: Nicholas DiPasquale 
+ */
+package com.test.guisort.sorts;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * An ISortEventListener that publishes the sort events of a SortingSet to
+ * asynchronous subscribers.  Each subscriber has a bounded buffer of events
+ * that is drained on the Executor in batches of typed index pairs as the
+ * subscriber requests them, so a slow subscriber does not stall the sort
+ * unless the Block overflow strategy is chosen.  The Block strategy needs an
+ * Executor that delivers on another thread than the sort.
+ * @author Nicholas DiPasquale
+ * @param <T>
+ */
+public class SortEventPublisher<T> implements ISortEventListener<T> {
+
+	/* The number of ints of each event, its type and two indices */
+	private static final int EVENT_SIZE = 3;
+	
+	/**
+	 * The strategy used when an event arrives at the full buffer of a
+	 * subscriber
+	 * @author Nicholas DiPasquale
+	 */
+	public enum Overflow {
+		/** The sort waits for the subscriber to make room */
+		Block,
+		/** The arriving event is dropped */
+		DropNewest,
+		/** The oldest buffered event is dropped */
+		DropOldest,
+		/** The subscription fails with an IllegalStateException */
+		Error;
+	} /* END: enum Overflow */
+	
+	/**
+	 * The subscription of a single subscriber with its own buffer of events
+	 * and demand
+	 * @author Nicholas DiPasquale
+	 */
+	private class Subscription implements ISortEventSubscription, Runnable {
+		/* The subscriber of the events */
+		private final ISortEventSubscriber _subscriber;
+		/* The ring buffer of the type and indices of each event */
+		private final int[] _events = new int[EVENT_SIZE * _capacity];
+		/* The index of the oldest buffered event */
+		private int _head;
+		/* The number of buffered events */
+		private int _size;
+		/* The outstanding demand for batches */
+		private long _demand;
+		/* The failure to deliver, if the subscription failed */
+		private Throwable _error;
+		/* Flag set once the subscription is cancelled or terminated */
+		private boolean _done;
+		/* The number of requests to drain the buffer */
+		private final AtomicInteger _work = new AtomicInteger ();
+		
+		/**
+		 * Create a new Subscription for the given subscriber
+		 * @param subscriber The subscriber of the events
+		 */
+		public Subscription (ISortEventSubscriber subscriber) {
+			_subscriber = subscriber;
+		}
+		
+		/**
+		 * Buffer an event for the subscriber
+		 * @param type The type of the event
+		 * @param index0 The first index of the event
+		 * @param index1 The second index of the event
+		 */
+		public void offer (SortEvent.Type type, int index0, int index1) {
+			synchronized (this) {
+				if (_done || _error != null) {
+					return;
+				}
+				if (_size == _capacity) {
+					switch (_overflow) {
+					case Block:
+						while (_size == _capacity && !_done && _error == null) {
+							try {
+								wait ();
+							} catch (InterruptedException e) {
+								Thread.currentThread ().interrupt ();
+								_dropped.incrementAndGet ();
+								return;
+							}
+						}
+						if (_done || _error != null) {
+							return;
+						}
+						break;
+					case DropNewest:
+						_dropped.incrementAndGet ();
+						return;
+					case DropOldest:
+						_head = (_head + 1) % _capacity;
+						--_size;
+						_dropped.incrementAndGet ();
+						break;
+					case Error:
+						_dropped.incrementAndGet ();
+						_error = new IllegalStateException ("Sort event buffer overflow of " + _capacity + " events");
+						_size = 0;
+						break;
+					}
+				}
+				if (_error == null) {
+					int tail = (_head + _size) % _capacity;
+					_events[EVENT_SIZE * tail] = type.ordinal ();
+					_events[EVENT_SIZE * tail + 1] = index0;
+					_events[EVENT_SIZE * tail + 2] = index1;
+					++_size;
+				}
+			}
+			schedule ();
+		}
+		
+		/**
+		 * @see com.test.guisort.sorts.ISortEventSubscription#request(long)
+		 */
+		public void request (long n) {
+			synchronized (this) {
+				if (n <= 0) {
+					_error = new IllegalArgumentException ("Non-positive request: " + n);
+				} else {
+					_demand = (_demand + n < 0) ? Long.MAX_VALUE : _demand + n;
+				}
+			}
+			schedule ();
+		}
+		
+		/**
+		 * @see com.test.guisort.sorts.ISortEventSubscription#cancel()
+		 */
+		public void cancel () {
+			synchronized (this) {
+				_done = true;
+				_size = 0;
+				notifyAll ();
+			}
+			_subscriptions.remove (this);
+		}
+		
+		/*
+		 * Run the drain on the Executor unless it is already running, a drain
+		 * that is running repeats until it has seen every request
+		 */
+		private void schedule () {
+			if (_work.getAndIncrement () == 0) {
+				_executor.execute (this);
+			}
+		}
+		
+		/**
+		 * Deliver the buffered events to the subscriber in batches while it
+		 * has demand, then any failure or completion
+		 * @see java.lang.Runnable#run ()
+		 */
+		public void run () {
+			int missed = 1;
+			do {
+				while (true) {
+					int[] batch = null;
+					Throwable error = null;
+					boolean complete = false;
+					synchronized (this) {
+						if (_done) {
+							break;
+						}
+						if (_error != null) {
+							error = _error;
+							_done = true;
+						} else if (_demand > 0 && _size > 0) {
+							int count = Math.min (_size, _batchSize);
+							batch = new int[EVENT_SIZE * count];
+							for (int i = 0; i < count; ++i) {
+								int index = (_head + i) % _capacity;
+								System.arraycopy (_events, EVENT_SIZE * index, batch, EVENT_SIZE * i, EVENT_SIZE);
+							}
+							_head = (_head + count) % _capacity;
+							_size -= count;
+							--_demand;
+							notifyAll ();
+						} else if (_size == 0 && _closed) {
+							complete = true;
+							_done = true;
+						} else {
+							break;
+						}
+					}
+					if (error != null) {
+						_subscriptions.remove (this);
+						_subscriber.onError (error);
+					} else if (complete) {
+						_subscriptions.remove (this);
+						_subscriber.onComplete ();
+					} else {
+						_subscriber.onNext (batch);
+					}
+				}
+				missed = _work.addAndGet (-missed);
+			} while (missed != 0);
+		}
+		
+	} /* END: class Subscription */
+	
+	/* The Executor that delivers the events */
+	private final Executor _executor;
+	/* The most events buffered for each subscriber */
+	private final int _capacity;
+	/* The most events in each batch */
+	private final int _batchSize;
+	/* The strategy used when a buffer is full */
+	private final Overflow _overflow;
+	/* The active subscriptions */
+	private final List<Subscription> _subscriptions = new CopyOnWriteArrayList<Subscription> ();
+	/* The number of events dropped by the overflow strategy */
+	private final AtomicLong _dropped = new AtomicLong ();
+	/* Flag set once the publisher is closed */
+	private volatile boolean _closed;
+	
+	/**
+	 * Create a new SortEventPublisher
+	 * @param executor The Executor that delivers the events
+	 * @param capacity The most events buffered for each subscriber
+	 * @param batchSize The most events in each batch
+	 * @param overflow The strategy used when a buffer is full
+	 * @throws IllegalArgumentException If the capacity or batch size is not
+	 * positive
+	 */
+	public SortEventPublisher (Executor executor, int capacity, int batchSize, Overflow overflow) {
+		if (capacity <= 0 || batchSize <= 0) {
+			throw new IllegalArgumentException ("Capacity: " + capacity + ", Batch size: " + batchSize);
+		}
+		_executor = executor;
+		_capacity = capacity;
+		_batchSize = batchSize;
+		_overflow = overflow;
+	}
+	
+	/**
+	 * Subscribe to the events published after this call
+	 * @param subscriber The subscriber of the events
+	 */
+	public void subscribe (ISortEventSubscriber subscriber) {
+		Subscription subscription = new Subscription (subscriber);
+		subscriber.onSubscribe (subscription);
+		_subscriptions.add (subscription);
+		if (_closed) {
+			subscription.schedule ();
+		}
+	}
+	
+	/**
+	 * Buffer the event for each subscriber
+	 * @see com.test.guisort.sorts.ISortEventListener#swapPerformed(com.test.guisort.sorts.SortEvent)
+	 */
+	public void swapPerformed (SortEvent<T> event) {
+		for (Subscription subscription : _subscriptions) {
+			subscription.offer (event.getType (), event.getIndex0 (), event.getIndex1 ());
+		}
+	}
+	
+	/**
+	 * Close the publisher, each subscriber completes once it has received
+	 * the events already buffered
+	 */
+	public void close () {
+		_closed = true;
+		for (Subscription subscription : _subscriptions) {
+			subscription.schedule ();
+		}
+	}
+	
+	/**
+	 * Get the number of events dropped by the overflow strategy
+	 * @return The number of dropped events
+	 */
+	public long dropped () {
+		return _dropped.get ();
+	}
+	
+}
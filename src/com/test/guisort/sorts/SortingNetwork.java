@@ -0,0 +1,139 @@
+/*
+ * SortingNetwork.java - 
+ * Written By: Nicholas DiPasquale 
+ */
+package com.test.guisort.sorts;
+
+import java.util.*;
+
+/**
+ * Utilities class that sorts small ranges of data with fixed sorting
+ * networks.  A network is a sequence of compare-exchanges between fixed
+ * indices, the same sequence sorts every input of its size, so the only
+ * data dependent work is the exchange itself.  The networks for 2 to 12 and
+ * 16 items are the smallest known, those for 13 to 15 items are taken from
+ * the 16 item network.  The primitive networks exchange with Math.min and
+ * Math.max and do not branch.  Networks are not stable.
+ * @author Nicholas DiPasquale
+ */
+public class SortingNetwork {
+
+	/** The largest range of data that is sorted with a network */
+	public static final int MAX_SIZE = 16;
+	
+	/* The pairs of indices of the compare-exchanges of each network size */
+	private static final int[][] NETWORKS = {
+		/* 0 */ { },
+		/* 1 */ { },
+		/* 2 */ { 0, 1 },
+		/* 3 */ { 0, 2, 0, 1, 1, 2 },
+		/* 4 */ { 0, 2, 1, 3, 0, 1, 2, 3, 1, 2 },
+		/* 5 */ { 0, 3, 1, 4, 0, 2, 1, 3, 0, 1, 2, 4, 1, 2, 3, 4, 2, 3 },
+		/* 6 */ { 0, 5, 1, 3, 2, 4, 1, 2, 3, 4, 0, 3, 2, 5, 0, 1, 2, 3, 4, 5, 1, 2, 3, 4 },
+		/* 7 */ { 0, 6, 2, 3, 4, 5, 0, 2, 1, 4, 3, 6, 0, 1, 2, 5, 3, 4, 1, 2, 4, 6, 2, 3,
+			4, 5, 1, 2, 3, 4, 5, 6 },
+		/* 8 */ { 0, 2, 1, 3, 4, 6, 5, 7, 0, 4, 1, 5, 2, 6, 3, 7, 0, 1, 2, 3, 4, 5, 6, 7,
+			2, 4, 3, 5, 1, 4, 3, 6, 1, 2, 3, 4, 5, 6 },
+		/* 9 */ { 0, 3, 1, 7, 2, 5, 4, 8, 0, 7, 2, 4, 3, 8, 5, 6, 0, 2, 1, 3, 4, 5, 7, 8,
+			1, 4, 3, 6, 5, 7, 0, 1, 2, 4, 3, 5, 6, 8, 2, 3, 4, 5, 6, 7, 1, 2, 3, 4,
+			5, 6 },
+		/* 10 */ { 0, 8, 1, 9, 2, 7, 3, 5, 4, 6, 0, 2, 1, 4, 5, 8, 7, 9, 0, 3, 2, 4, 5, 7,
+			6, 9, 0, 1, 3, 6, 8, 9, 1, 5, 2, 3, 4, 8, 6, 7, 1, 2, 3, 5, 4, 6, 7, 8,
+			2, 3, 4, 5, 6, 7, 3, 4, 5, 6 },
+		/* 11 */ { 0, 9, 1, 6, 2, 4, 3, 7, 5, 8, 0, 1, 3, 5, 4, 10, 6, 9, 7, 8, 1, 3, 2, 5,
+			4, 7, 8, 10, 0, 4, 1, 2, 3, 7, 5, 9, 6, 8, 0, 1, 2, 6, 4, 5, 7, 8, 9, 10,
+			2, 4, 3, 6, 5, 7, 8, 9, 1, 2, 3, 4, 5, 6, 7, 8, 2, 3, 4, 5, 6, 7 },
+		/* 12 */ { 0, 8, 1, 7, 2, 6, 3, 11, 4, 10, 5, 9, 0, 1, 2, 5, 3, 4, 6, 9, 7, 8,
+			10, 11, 0, 2, 1, 6, 5, 10, 9, 11, 0, 3, 1, 2, 4, 6, 5, 7, 8, 11, 9, 10,
+			1, 4, 3, 5, 6, 8, 7, 10, 1, 3, 2, 5, 6, 9, 8, 10, 2, 3, 4, 5, 6, 7, 8, 9,
+			4, 6, 5, 7, 3, 4, 5, 6, 7, 8 },
+		/* 13 */ { 1, 12, 4, 8, 5, 6, 7, 11, 9, 10, 0, 5, 1, 7, 2, 9, 3, 4, 11, 12, 0, 1,
+			2, 3, 4, 5, 6, 8, 7, 9, 10, 11, 0, 2, 1, 3, 4, 10, 5, 11, 6, 7, 8, 9,
+			1, 2, 3, 12, 4, 6, 5, 7, 8, 10, 9, 11, 1, 4, 2, 6, 5, 8, 7, 10, 2, 4,
+			3, 6, 9, 12, 3, 5, 6, 8, 7, 9, 10, 12, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12,
+			6, 7, 8, 9 },
+		/* 14 */ { 0, 13, 1, 12, 4, 8, 5, 6, 7, 11, 9, 10, 0, 5, 1, 7, 2, 9, 3, 4, 6, 13,
+			11, 12, 0, 1, 2, 3, 4, 5, 6, 8, 7, 9, 10, 11, 12, 13, 0, 2, 1, 3, 4, 10,
+			5, 11, 6, 7, 8, 9, 1, 2, 3, 12, 4, 6, 5, 7, 8, 10, 9, 11, 1, 4, 2, 6,
+			5, 8, 7, 10, 9, 13, 2, 4, 3, 6, 9, 12, 11, 13, 3, 5, 6, 8, 7, 9, 10, 12,
+			3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 6, 7, 8, 9 },
+		/* 15 */ { 0, 13, 1, 12, 3, 14, 4, 8, 5, 6, 7, 11, 9, 10, 0, 5, 1, 7, 2, 9, 3, 4,
+			6, 13, 8, 14, 11, 12, 0, 1, 2, 3, 4, 5, 6, 8, 7, 9, 10, 11, 12, 13, 0, 2,
+			1, 3, 4, 10, 5, 11, 6, 7, 8, 9, 12, 14, 1, 2, 3, 12, 4, 6, 5, 7, 8, 10,
+			9, 11, 13, 14, 1, 4, 2, 6, 5, 8, 7, 10, 9, 13, 11, 14, 2, 4, 3, 6, 9, 12,
+			11, 13, 3, 5, 6, 8, 7, 9, 10, 12, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 6, 7,
+			8, 9 },
+		/* 16 */ { 0, 13, 1, 12, 2, 15, 3, 14, 4, 8, 5, 6, 7, 11, 9, 10, 0, 5, 1, 7, 2, 9,
+			3, 4, 6, 13, 8, 14, 10, 15, 11, 12, 0, 1, 2, 3, 4, 5, 6, 8, 7, 9, 10, 11,
+			12, 13, 14, 15, 0, 2, 1, 3, 4, 10, 5, 11, 6, 7, 8, 9, 12, 14, 13, 15,
+			1, 2, 3, 12, 4, 6, 5, 7, 8, 10, 9, 11, 13, 14, 1, 4, 2, 6, 5, 8, 7, 10,
+			9, 13, 11, 14, 2, 4, 3, 6, 9, 12, 11, 13, 3, 5, 6, 8, 7, 9, 10, 12, 3, 4,
+			5, 6, 7, 8, 9, 10, 11, 12, 6, 7, 8, 9 }
+	};
+	
+	/*
+	 * Sort a range of the data in the given SortingSet with the network of
+	 * its size, firing an event for each exchange made
+	 * @param <T>
+	 * @param set The SortingSet of data to sort
+	 * @param left The left offset of the data
+	 * @param right The right offset of the data
+	 */
+	static <T> void sort (SortingSet<T> set, int left, int right) {
+		int[] network = NETWORKS[right - left];
+		for (int i = 0; i < network.length; i += 2) {
+			int a = left + network[i], b = left + network[i + 1];
+			if (SortingSet.compare (set._list.get (a), set._list.get (b)) > 0) {
+				Collections.swap (set._list, a, b);
+				SortingSet.fireEvent (set, a, b);
+			}
+		}
+	}
+	
+	/**
+	 * Sort a range of the given array of data with the network of its size
+	 * @param array The array of data to sort
+	 * @param left The left offset of the data
+	 * @param right The right offset of the data
+	 * @throws IllegalArgumentException If the range is larger than MAX_SIZE
+	 */
+	public static void sort (int[] array, int left, int right) {
+		int[] network = network (left, right);
+		for (int i = 0; i < network.length; i += 2) {
+			int a = left + network[i], b = left + network[i + 1];
+			int x = array[a], y = array[b];
+			array[a] = Math.min (x, y);
+			array[b] = Math.max (x, y);
+		}
+	}
+	/**
+	 * Sort a range of the given array of data with the network of its size
+	 * @param array The array of data to sort
+	 * @param left The left offset of the data
+	 * @param right The right offset of the data
+	 * @throws IllegalArgumentException If the range is larger than MAX_SIZE
+	 */
+	public static void sort (long[] array, int left, int right) {
+		int[] network = network (left, right);
+		for (int i = 0; i < network.length; i += 2) {
+			int a = left + network[i], b = left + network[i + 1];
+			long x = array[a], y = array[b];
+			array[a] = Math.min (x, y);
+			array[b] = Math.max (x, y);
+		}
+	}
+	
+	/*
+	 * Get the network that sorts the given range of data
+	 * @param left The left offset of the data
+	 * @param right The right offset of the data
+	 * @return The pairs of indices of the compare-exchanges
+	 */
+	private static int[] network (int left, int right) {
+		if (right - left > MAX_SIZE || right < left) {
+			throw new IllegalArgumentException ("Range: " + left + " to " + right + ", Maximum size: " + MAX_SIZE);
+		}
+		return NETWORKS[right - left];
+	}
+	
+}
@@ -5,6 +5,7 @@
 package com.test.guisort.sorts;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * Generic abstract class that implements a sortable Set.  Child classes
@@ -20,6 +21,19 @@ public abstract class SortingSet<T> implements Set<T> {
 	protected List<T> _list;
 	/* ISortEventListener list */
 	protected List<ISortEventListener<T> > _listeners;
+	/* Flag set when the data list may no longer be in sorted order */
+	protected boolean _dirty;
+	/* Flag to keep the data list sorted as items are added */
+	protected boolean _maintainSorted;
+	/* Flag to remove duplicate items while sorting */
+	protected boolean _unique;
+	/* The token checked for cancellation while sorting */
+	protected volatile CancellationToken _cancellation;
+	/* The estimated fraction of the running sort that is complete */
+	protected volatile double _progress;
+	
+	/* The largest bulk add that is binary inserted rather than merged */
+	private static final int INSERTION_THRESHOLD = 8;
 	
 	/**
 	 * Create a new instance of a SortingSet
@@ -27,6 +41,7 @@ public abstract class SortingSet<T> implements Set<T> {
 	protected SortingSet () {
 		_list = new ArrayList<T> ();
 		_listeners = new LinkedList<ISortEventListener<T> > ();
+		_dirty = false;
 	}
 	/**
 	 * Create a new instance of a SortingSet with an initial Collection
@@ -35,6 +50,7 @@ public abstract class SortingSet<T> implements Set<T> {
 	protected SortingSet (Collection<T> collection) {
 		_list = new ArrayList<T> (collection);
 		_listeners = new LinkedList<ISortEventListener<T> > ();
+		_dirty = _list.size () > 1;
 	}
 	/**
 	 * Create a new instance of a SortingSet with the given initial capacity
@@ -43,6 +59,7 @@ public abstract class SortingSet<T> implements Set<T> {
 	protected SortingSet (int initialCapacity) {
 		_list = new ArrayList<T> (initialCapacity);
 		_listeners = new LinkedList<ISortEventListener<T> > ();
+		_dirty = false;
 	}
 	/**
 	 * Internal copy constructor
@@ -50,6 +67,7 @@ public abstract class SortingSet<T> implements Set<T> {
 	protected SortingSet (List<T> list, List<ISortEventListener<T> > listeners) {
 		_list = list;
 		_listeners = listeners;
+		_dirty = list.size () > 1;
 	}
 	
 	/**
@@ -70,6 +88,85 @@ public abstract class SortingSet<T> implements Set<T> {
 		_listeners.remove (listener);
 	}
 	
+	/**
+	 * Get the status of the maintain sorted flag
+	 * @return If the SortingSet keeps its data sorted as items are added
+	 */
+	public boolean maintainSorted () {
+		return _maintainSorted;
+	}
+	/**
+	 * Set the status of the maintain sorted flag.  While set the SortingSet
+	 * keeps its data in sorted order: single items are placed with a binary
+	 * search and bulk adds are sorted on their own and merged in.  Turning
+	 * the flag on sorts any data that is not already in order.
+	 * @param maintain The status of the maintain sorted flag
+	 */
+	public void maintainSorted (boolean maintain) {
+		if (maintain) {
+			ensureSorted ();
+		}
+		_maintainSorted = maintain;
+	}
+	
+	/**
+	 * Get the status of the unique flag
+	 * @return If the SortingSet removes duplicate items while sorting
+	 */
+	public boolean unique () {
+		return _unique;
+	}
+	/**
+	 * Set the status of the unique flag.  While set a sort leaves only one of
+	 * each group of equal items, which gives the SortingSet real Set
+	 * semantics, and adds to a SortingSet that maintains its sorted order
+	 * skip items that are already present.
+	 * @param unique The status of the unique flag
+	 */
+	public void unique (boolean unique) {
+		_unique = unique;
+		if (unique && !_dirty) {
+			dedupe ();
+		}
+	}
+	
+	/**
+	 * Determines if the data in the SortingSet is known to be in sorted order,
+	 * a sort on a SortingSet that is already sorted performs no work
+	 * @return If the SortingSet is in sorted order
+	 */
+	public boolean isSorted () {
+		return !_dirty;
+	}
+	
+	/**
+	 * Get the token checked for cancellation while sorting
+	 * @return The CancellationToken of the SortingSet or null
+	 */
+	public CancellationToken cancellation () {
+		return _cancellation;
+	}
+	/**
+	 * Set the token checked for cancellation while sorting.  Each algorithm
+	 * checks the token at coarse points of its work and a cancelled sort
+	 * throws a CancellationException, leaving the data unsorted but with no
+	 * items lost.
+	 * @param cancellation The CancellationToken or null to never cancel
+	 */
+	public void cancellation (CancellationToken cancellation) {
+		_cancellation = cancellation;
+	}
+	
+	/**
+	 * Get an estimate of how much of the running sort is complete, the
+	 * estimate may be read from any thread while the sort runs
+	 * @return The estimated fraction of the sort from 0 to 1, 1 once the
+	 * data is sorted
+	 */
+	public double progress () {
+		return _dirty ? _progress : 1.0;
+	}
+	
 	/**
 	 * Get the size of the SortingSet
 	 * @return The size of the SortingSet
@@ -95,7 +192,81 @@ public abstract class SortingSet<T> implements Set<T> {
 	 * @see java.util.Set#contains (java.lang.Object)
 	 */
 	public boolean contains (Object obj) {
-		return _list.contains (obj);
+		return indexOf (obj) >= 0;
+	}
+
+	/**
+	 * Get the index of the specified Object in the SortingSet, a binary search
+	 * is used while the SortingSet is sorted
+	 * @param obj The object to find in the SortingSet
+	 * @return The index of the object or -1 if it is not in the SortingSet
+	 */
+	public int indexOf (Object obj) {
+		if (!_dirty && obj != null) {
+			for (int i = lowerBound (_list, 0, _list.size (), obj); i < _list.size () && compare (_list.get (i), obj) == 0; ++i) {
+				if (obj.equals (_list.get (i))) {
+					return i;
+				}
+			}
+			return -1;
+		}
+		return _list.indexOf (obj);
+	}
+	
+	/**
+	 * Get the number of items in the SortingSet that are less than the given
+	 * item, the SortingSet is sorted first if it is not already
+	 * @param obj The item to rank
+	 * @return The number of items less than the given item
+	 */
+	public int rank (T obj) {
+		ensureSorted ();
+		return lowerBound (_list, 0, _list.size (), obj);
+	}
+	
+	/**
+	 * Get the greatest item in the SortingSet that is less than or equal to
+	 * the given item, the SortingSet is sorted first if it is not already
+	 * @param obj The item to search for
+	 * @return The greatest item not greater than the given item or null if
+	 * there is no such item
+	 */
+	public T floor (T obj) {
+		ensureSorted ();
+		int index = upperBound (_list, 0, _list.size (), obj);
+		return (index > 0) ? _list.get (index - 1) : null;
+	}
+	
+	/**
+	 * Get the least item in the SortingSet that is greater than or equal to
+	 * the given item, the SortingSet is sorted first if it is not already
+	 * @param obj The item to search for
+	 * @return The least item not less than the given item or null if there is
+	 * no such item
+	 */
+	public T ceiling (T obj) {
+		ensureSorted ();
+		int index = lowerBound (_list, 0, _list.size (), obj);
+		return (index < _list.size ()) ? _list.get (index) : null;
+	}
+	
+	/**
+	 * Get a read only view of the items in the SortingSet from the given item
+	 * inclusive to the other given item exclusive.  The items are not copied
+	 * and the view is only valid until the SortingSet is next changed.  The
+	 * SortingSet is sorted first if it is not already.
+	 * @param from The low end point of the range, inclusive
+	 * @param to The high end point of the range, exclusive
+	 * @return A view of the items within the range
+	 */
+	public List<T> range (T from, T to) {
+		if (compare (from, to) > 0) {
+			throw new IllegalArgumentException ("from is greater than to");
+		}
+		ensureSorted ();
+		int left = lowerBound (_list, 0, _list.size (), from);
+		int right = lowerBound (_list, left, _list.size (), to);
+		return Collections.unmodifiableList (_list.subList (left, right));
 	}
 
 	/**
@@ -133,7 +304,16 @@ public abstract class SortingSet<T> implements Set<T> {
 	 * @see java.util.Set#add (E)
 	 */
 	public boolean add (T obj) {
+		if (_maintainSorted) {
+			int index = upperBound (_list, 0, _list.size (), obj);
+			if (_unique && index > 0 && compare (_list.get (index - 1), obj) == 0) {
+				return false;
+			}
+			_list.add (index, obj);
+			return true;
+		}
 		boolean result = _list.add (obj);
+		_dirty = _list.size () > 1;
 		return result;
 	}
 
@@ -144,6 +324,13 @@ public abstract class SortingSet<T> implements Set<T> {
 	 * @see java.util.Set#remove (java.lang.Object)
 	 */
 	public boolean remove (Object obj) {
+		if (!_dirty && obj != null) {
+			int index = indexOf (obj);
+			if (index >= 0) {
+				_list.remove (index);
+			}
+			return index >= 0;
+		}
 		boolean result = _list.remove (obj);
 		// HeapSet.heapify (this);
 		return result;
@@ -155,6 +342,14 @@ public abstract class SortingSet<T> implements Set<T> {
 	 * @see java.util.Set#containsAll (java.util.Collection)
 	 */
 	public boolean containsAll (Collection<?> collection) {
+		if (!_dirty) {
+			for (Object obj : collection) {
+				if (indexOf (obj) < 0) {
+					return false;
+				}
+			}
+			return true;
+		}
 		return _list.containsAll (collection);
 	}
 
@@ -165,7 +360,24 @@ public abstract class SortingSet<T> implements Set<T> {
 	 * @see java.util.Set#addAll (java.util.Collection)
 	 */
 	public boolean addAll (Collection<? extends T> collection) {
+		int size = _list.size ();
+		if (!_dirty && isSortedSet (collection)) {
+			_list = merge (_list, ((SortingSet<? extends T>) collection)._list, _unique);
+			return _list.size () != size;
+		}
+		if (_maintainSorted) {
+			if (collection.size () < INSERTION_THRESHOLD) {
+				for (T obj : collection) {
+					add (obj);
+				}
+			} else {
+				T[] buffer = MergeSet.mergeSort ((T[]) collection.toArray ());
+				_list = merge (_list, Arrays.asList (buffer), _unique);
+			}
+			return _list.size () != size;
+		}
 		boolean result = _list.addAll (collection);
+		_dirty = _list.size () > 1;
 		// HeapSet.heapify (this);
 		return result;
 	}
@@ -177,7 +389,7 @@ public abstract class SortingSet<T> implements Set<T> {
 	 * @see java.util.Set#retainAll (java.util.Collection)
 	 */
 	public boolean retainAll (Collection<?> collection) {
-		boolean result = _list.retainAll (collection);
+		boolean result = filter (collection, true);
 		// HeapSet.heapify (this);
 		return result;
 	}
@@ -189,10 +401,58 @@ public abstract class SortingSet<T> implements Set<T> {
 	 * @see java.util.Set#removeAll (java.util.Collection)
 	 */
 	public boolean removeAll (Collection<?> collection) {
-		boolean result = _list.removeAll (collection);
+		boolean result = filter (collection, false);
 		// HeapSet.heapify (this);
 		return result;
 	}
+	
+	/*
+	 * Keeps either only the items that are in the given Collection or only
+	 * the items that are not, compacting the data list in place.  When both
+	 * sides are sorted SortingSets this is a single linear merge pass, in
+	 * other cases the Collection is looked up through a hash set.
+	 * @param collection The Collection of items to look up
+	 * @param retain If the items in the Collection are kept or removed
+	 * @return If the SortingSet was changed
+	 */
+	private boolean filter (Collection<?> collection, boolean retain) {
+		int size = _list.size ();
+		int write = 0;
+		if (!_dirty && isSortedSet (collection)) {
+			List<?> other = ((SortingSet<?>) collection)._list;
+			for (int read = 0, j = 0; read < size; ++read) {
+				T obj = _list.get (read);
+				while (j < other.size () && compare (other.get (j), obj) < 0) {
+					++j;
+				}
+				if ((j < other.size () && compare (other.get (j), obj) == 0) == retain) {
+					_list.set (write++, obj);
+				}
+			}
+		} else {
+			Collection<?> lookup = collection;
+			if (!isSortedSet (collection) && (!(collection instanceof Set) || collection instanceof SortingSet)) {
+				lookup = new HashSet<Object> (collection);
+			}
+			for (int read = 0; read < size; ++read) {
+				T obj = _list.get (read);
+				if (lookup.contains (obj) == retain) {
+					_list.set (write++, obj);
+				}
+			}
+		}
+		_list.subList (write, size).clear ();
+		return write < size;
+	}
+	
+	/*
+	 * Determines if the given Collection is a SortingSet in sorted order
+	 * @param collection The Collection to check
+	 * @return If the Collection is a sorted SortingSet
+	 */
+	private static boolean isSortedSet (Collection<?> collection) {
+		return (collection instanceof SortingSet) && !((SortingSet<?>) collection)._dirty;
+	}
 
 	/**
 	 * Removes all items from the SortingSet
@@ -200,6 +460,156 @@ public abstract class SortingSet<T> implements Set<T> {
 	 */
 	public void clear () {
 		_list.clear ();
+		_dirty = false;
+	}
+	
+	/**
+	 * Sorts the data in the SortingSet in place if it is not already known to
+	 * be in sorted order
+	 */
+	protected void ensureSorted () {
+		if (_dirty) {
+			sort ((T[]) new Object[_list.size ()]);
+		}
+	}
+	
+	/**
+	 * Called by a sorting algorithm once it has sorted the given length of the
+	 * data list, updates the dirty flag and removes duplicate items if the
+	 * unique flag is set
+	 * @param length The length of the data that was sorted
+	 */
+	protected void sorted (int length) {
+		_progress = 0.0;
+		_dirty = length < _list.size ();
+		if (_unique && !_dirty) {
+			dedupe ();
+		}
+	}
+	
+	/**
+	 * Removes all but the first of each run of equal items from the sorted
+	 * data list in a single pass, compacting the list in place
+	 */
+	protected void dedupe () {
+		int size = _list.size ();
+		int write = Math.min (size, 1);
+		for (int read = 1; read < size; ++read) {
+			T obj = _list.get (read);
+			if (compare (_list.get (write - 1), obj) != 0) {
+				_list.set (write++, obj);
+			}
+		}
+		_list.subList (write, size).clear ();
+	}
+	
+	/**
+	 * Copies the sorted data list into the given array.  When the unique flag
+	 * is set and duplicates were removed a new array of the same type that
+	 * fits the remaining items is returned instead.
+	 * @param array The array to copy the data into
+	 * @return The array holding the sorted data
+	 */
+	protected T[] toSortedArray (T[] array) {
+		if (_unique && array.length > _list.size ()) {
+			array = (T[]) java.lang.reflect.Array.newInstance (array.getClass ().getComponentType (), _list.size ());
+		}
+		return _list.toArray (array);
+	}
+	
+	/**
+	 * Compares two items of a SortingSet by their natural ordering
+	 * @param a The first item to compare
+	 * @param b The second item to compare
+	 * @return A negative, zero or positive value as a is less than, equal to
+	 * or greater than b
+	 */
+	protected static int compare (Object a, Object b) {
+		return ((Comparable<Object>) a).compareTo (b);
+	}
+	
+	/**
+	 * Binary search for the first index in the sorted range of the list that
+	 * holds an item not less than the given key
+	 * @param list The sorted list to search
+	 * @param left The left offset of the range
+	 * @param right The right offset of the range
+	 * @param key The key to search for
+	 * @return The index of the first item not less than the key
+	 */
+	protected static int lowerBound (List<?> list, int left, int right, Object key) {
+		while (left < right) {
+			int middle = left + ((right - left) >> 1);
+			if (compare (list.get (middle), key) < 0) {
+				left = middle + 1;
+			} else {
+				right = middle;
+			}
+		}
+		return left;
+	}
+	
+	/**
+	 * Binary search for the first index in the sorted range of the list that
+	 * holds an item greater than the given key
+	 * @param list The sorted list to search
+	 * @param left The left offset of the range
+	 * @param right The right offset of the range
+	 * @param key The key to search for
+	 * @return The index of the first item greater than the key
+	 */
+	protected static int upperBound (List<?> list, int left, int right, Object key) {
+		while (left < right) {
+			int middle = left + ((right - left) >> 1);
+			if (compare (list.get (middle), key) <= 0) {
+				left = middle + 1;
+			} else {
+				right = middle;
+			}
+		}
+		return left;
+	}
+	
+	/**
+	 * Merges two sorted lists into a new sorted list, items from the first
+	 * list are placed before equal items from the second list
+	 * @param <T>
+	 * @param a The first sorted list
+	 * @param b The second sorted list
+	 * @param unique If only the first of each run of equal items is kept
+	 * @return A new list holding the sorted items of both lists
+	 */
+	protected static <T> List<T> merge (List<T> a, List<? extends T> b, boolean unique) {
+		List<T> result = new ArrayList<T> (a.size () + b.size ());
+		int i = 0, j = 0;
+		while (i < a.size () || j < b.size ()) {
+			T obj;
+			if (i >= a.size () || j < b.size () && compare (b.get (j), a.get (i)) < 0) {
+				obj = b.get (j++);
+			} else {
+				obj = a.get (i++);
+			}
+			if (!unique || result.isEmpty () || compare (result.get (result.size () - 1), obj) != 0) {
+				result.add (obj);
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Called by a sorting algorithm at coarse points of its work, such as
+	 * each partition, merge or pass, to record its progress and to stop the
+	 * sort once it has been cancelled
+	 * @param set The SortingSet being sorted
+	 * @param progress The estimated fraction of the sort that is complete
+	 * @throws CancellationException If the CancellationToken is cancelled
+	 */
+	protected static void checkpoint (SortingSet<?> set, double progress) {
+		set._progress = Math.min (progress, 1.0);
+		CancellationToken cancellation = set._cancellation;
+		if (cancellation != null && cancellation.isCancelled ()) {
+			throw new CancellationException ("Sort cancelled at " + Math.round (set._progress * 100.0) + "%");
+		}
 	}
 	
 	/**
@@ -212,7 +622,24 @@ public abstract class SortingSet<T> implements Set<T> {
 	 * @param index1 The second index in the swap
 	 */
 	protected static <T> void fireEvent (SortingSet<T> set, int index0, int index1) {
-		SortEvent<T> event = new SortEvent<T> (set, index0, index1);
+		fireEvent (set, SortEvent.Type.Swap, index0, index1);
+	}
+	/**
+	 * Fires a SortEvent of the given type to all of the registered
+	 * ISortEventListeners on the SortingSet.  A Write or Move event holds the
+	 * item that is now at the first index.
+	 * @param <T>
+	 * @param set The set to use to fire the event
+	 * @param type The type of change made to the data
+	 * @param index0 The first index of the change
+	 * @param index1 The second index of the change
+	 */
+	protected static <T> void fireEvent (SortingSet<T> set, SortEvent.Type type, int index0, int index1) {
+		if (set._listeners.isEmpty ()) {
+			return;
+		}
+		T value = (type == SortEvent.Type.Swap) ? null : set._list.get (index0);
+		SortEvent<T> event = new SortEvent<T> (set, type, index0, index1, value);
 		Iterator<ISortEventListener<T> > iterator = set._listeners.iterator ();
 		while (iterator.hasNext ()) {
 			ISortEventListener<T> listener = (ISortEventListener<T>) iterator.next ();
@@ -227,6 +654,113 @@ public abstract class SortingSet<T> implements Set<T> {
 	 */
 	public abstract T[] sort (T[] array);
 	
+	/**
+	 * Get the item of the given rank, the item at the given index once the
+	 * SortingSet is sorted.  This implementation selects from a QuickSet copy
+	 * of the data when it is not sorted so the order is left unchanged.
+	 * @param k The index of the item in sorted order
+	 * @return The item of the given rank
+	 */
+	public T select (int k) {
+		if (_dirty) {
+			return new QuickSet<T> (_list).select (k);
+		}
+		return _list.get (k);
+	}
+	
+	/**
+	 * Get the items of each of the given ranks in a single pass.  This
+	 * implementation selects from a QuickSet copy of the data when it is not
+	 * sorted so the order is left unchanged.
+	 * @param ranks The indices of the items in sorted order
+	 * @param array The array to store the items into
+	 * @return The items of the given ranks in the order of the ranks
+	 */
+	public T[] select (int[] ranks, T[] array) {
+		if (_dirty) {
+			return new QuickSet<T> (_list).select (ranks, array);
+		}
+		if (array.length < ranks.length) {
+			array = (T[]) java.lang.reflect.Array.newInstance (array.getClass ().getComponentType (), ranks.length);
+		}
+		for (int i = 0; i < ranks.length; ++i) {
+			array[i] = _list.get (ranks[i]);
+		}
+		return array;
+	}
+	
+	/**
+	 * Get the sorted order of the SortingSet as indices into its data without
+	 * moving any of the items, the order of equal items is kept
+	 * @return The indices of the items in sorted order
+	 * @see com.test.guisort.sorts.Permutation#argsort(java.util.List)
+	 */
+	public int[] argsort () {
+		return Permutation.argsort (_list);
+	}
+	
+	/**
+	 * Get the median item of the SortingSet, the lower of the two middle
+	 * items when the size is even
+	 * @return The median item
+	 */
+	public T median () {
+		return select ((_list.size () - 1) / 2);
+	}
+	
+	/**
+	 * Get the item at the given percentile of the SortingSet using the
+	 * nearest rank method
+	 * @param p The percentile from 0 to 100
+	 * @return The item at the percentile
+	 */
+	public T percentile (double p) {
+		return select (percentileRank (p, _list.size ()));
+	}
+	
+	/**
+	 * Get the items at each of the given percentiles of the SortingSet in a
+	 * single pass using the nearest rank method
+	 * @param p The percentiles from 0 to 100
+	 * @param array The array to store the items into
+	 * @return The items at the percentiles in the order of the percentiles
+	 */
+	public T[] percentiles (double[] p, T[] array) {
+		int[] ranks = new int[p.length];
+		for (int i = 0; i < p.length; ++i) {
+			ranks[i] = percentileRank (p[i], _list.size ());
+		}
+		return select (ranks, array);
+	}
+	
+	/*
+	 * Get the nearest rank index of a percentile
+	 * @param p The percentile from 0 to 100
+	 * @param size The size of the data
+	 * @return The index of the item at the percentile
+	 */
+	private static int percentileRank (double p, int size) {
+		if (!(p >= 0.0 && p <= 100.0)) {
+			throw new IllegalArgumentException ("Illegal percentile: " + p);
+		}
+		return Math.max ((int) Math.ceil (p / 100.0 * size) - 1, 0);
+	}
+	
+	/**
+	 * Sorts only the k smallest items of the SortingSet into the given array.
+	 * This implementation sorts a QuickSet copy of the data when it is not
+	 * sorted so the order is left unchanged.
+	 * @param k The number of items to sort
+	 * @param array The array to sort the items into
+	 * @return The k smallest items of the SortingSet in sorted order
+	 */
+	public T[] partialSort (int k, T[] array) {
+		if (_dirty) {
+			return new QuickSet<T> (_list).partialSort (k, array);
+		}
+		return _list.subList (0, Math.min (k, _list.size ())).toArray (array);
+	}
+	
 	/**
 	 * Get information about the sorting algorithm implemented by this
 	 * SortingSet
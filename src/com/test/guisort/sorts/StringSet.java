@@ -0,0 +1,216 @@
+/*
+ * StringSet.java - 
+ * Written By: Nicholas DiPasquale 
+ */
+package com.test.guisort.sorts;
+
+import java.util.*;
+
+/**
+ * A SortingSet of Strings that implements the multikey quick sort algorithm,
+ * also known as three way radix quick sort.  Each partition compares a single
+ * character at the current depth rather than whole Strings, so Strings that
+ * share long prefixes are not compared from their first character each time.
+ * @author Nicholas DiPasquale
+ */
+public class StringSet extends SortingSet<String> {
+
+	/* The insertion sort drop-off threshold size */
+	private static final int SORT_THRESHOLD = 10;
+	
+	/* The number of Strings placed by the running sort */
+	private int _finalized;
+	
+	/**
+	 * Create a new instance of an empty StringSet
+	 */
+	public StringSet () {
+		super ();
+	}
+	/**
+	 * Create a new instance of a StringSet that initially contains the items
+	 * in the given Collection
+	 * @param collection A Collection of items to initially add to the
+	 * StringSet
+	 */
+	public StringSet (Collection<String> collection) {
+		super (collection);
+	}
+	/**
+	 * Create a new instance of a StringSet that has the given initial capacity
+	 * @param initialCapacity The initial capacity of the new StringSet
+	 */
+	public StringSet (int initialCapacity) {
+		super (initialCapacity);
+	}
+	
+	/*
+	 * Perform the multikey quick sort on the given StringSet.  The character
+	 * of each String at the current depth is cached once per partition and
+	 * the cache is swapped along with the Strings, the Strings equal to the
+	 * pivot character continue at the next depth.
+	 * @param set The StringSet to perform the sort
+	 * @param cache The cached characters of the Strings at the current depth
+	 * @param left The left offset of the data
+	 * @param right The right offset of the data
+	 * @param depth The number of leading characters known to be equal
+	 */
+	private static void multikeysort (StringSet set, int[] cache, int left, int right, int depth) {
+		while (right - left >= SORT_THRESHOLD) {
+			for (int i = left; i < right; ++i) {
+				cache[i] = charAt (set._list.get (i), depth);
+			}
+			int pivot = medianOf3 (cache[left], cache[left + ((right - left) >> 1)], cache[right - 1]);
+			
+			int lt = left, gt = right - 1;
+			for (int i = left; i <= gt; ) {
+				if (cache[i] < pivot) {
+					swap (set, cache, lt++, i++);
+				} else if (cache[i] > pivot) {
+					swap (set, cache, i, gt--);
+				} else {
+					++i;
+				}
+			}
+			
+			multikeysort (set, cache, left, lt, depth);
+			multikeysort (set, cache, gt + 1, right, depth);
+			if (pivot < 0) {
+				finalized (set, gt + 1 - lt);
+				return;
+			}
+			left = lt;
+			right = gt + 1;
+			++depth;
+		}
+		insertionsort (set, left, right, depth);
+		finalized (set, right - left);
+	}
+	
+	/*
+	 * Record the Strings that are in their final place and check for
+	 * cancellation
+	 * @param set The StringSet being sorted
+	 * @param length The number of Strings placed
+	 */
+	private static void finalized (StringSet set, int length) {
+		set._finalized += length;
+		checkpoint (set, (double) set._finalized / (double) set._list.size ());
+	}
+	
+	/*
+	 * Perform an insertion sort on a small range of Strings that are known to
+	 * share the given number of leading characters
+	 * @param set The StringSet to perform the sort
+	 * @param left The left offset of the data
+	 * @param right The right offset of the data
+	 * @param depth The number of leading characters known to be equal
+	 */
+	private static void insertionsort (StringSet set, int left, int right, int depth) {
+		for (int i = left + 1; i < right; ++i) {
+			for (int j = i; j > left && compare (set._list.get (j - 1), set._list.get (j), depth) > 0; --j) {
+				Collections.swap (set._list, j, j - 1);
+				fireEvent (set, j - 1, j);
+			}
+		}
+	}
+	
+	/*
+	 * Compare two Strings starting from the given depth
+	 * @param a The first String
+	 * @param b The second String
+	 * @param depth The number of leading characters known to be equal
+	 * @return A negative, zero or positive value as a is less than, equal to
+	 * or greater than b
+	 */
+	private static int compare (String a, String b, int depth) {
+		int length = Math.min (a.length (), b.length ());
+		for (int i = depth; i < length; ++i) {
+			int difference = a.charAt (i) - b.charAt (i);
+			if (difference != 0) {
+				return difference;
+			}
+		}
+		return a.length () - b.length ();
+	}
+	
+	/*
+	 * Get the character of a String at the given depth
+	 * @param s The String
+	 * @param depth The index of the character
+	 * @return The character or -1 past the end of the String
+	 */
+	private static int charAt (String s, int depth) {
+		return (depth < s.length ()) ? s.charAt (depth) : -1;
+	}
+	
+	/*
+	 * Get the median of three cached characters
+	 * @param a The first character
+	 * @param b The second character
+	 * @param c The third character
+	 * @return The median character
+	 */
+	private static int medianOf3 (int a, int b, int c) {
+		return Math.max (Math.min (a, b), Math.min (Math.max (a, b), c));
+	}
+	
+	/*
+	 * Swap two Strings and their cached characters
+	 * @param set The StringSet to perform the swap
+	 * @param cache The cached characters of the Strings
+	 * @param a The first index
+	 * @param b The second index
+	 */
+	private static void swap (StringSet set, int[] cache, int a, int b) {
+		Collections.swap (set._list, a, b);
+		int c = cache[a];
+		cache[a] = cache[b];
+		cache[b] = c;
+		fireEvent (set, a, b);
+	}
+	
+	/**
+	 * @see com.test.guisort.sorts.SortingSet#sort(T[])
+	 */
+	public String[] sort (String[] array) {
+		if (_dirty) {
+			_finalized = 0;
+			multikeysort (this, new int[array.length], 0, array.length, 0);
+			sorted (array.length);
+		}
+		return toSortedArray (array);
+	}
+	
+	/**
+	 * @see com.test.guisort.sorts.SortingSet#getSortInformation()
+	 */
+	public String getSortInformation () {
+		return "Radix Divide and conquer\nBest Case: O(D)\nAverage Case: O(D + n log n)\nWorst Case: O(D + n^2)\nMemory Usage: O(n)\nUnstable\nwhere D is the length of the distinguishing prefixes";
+	}
+	
+	/**
+	 * Perform a multikey quick sort on the given array of Strings
+	 * @param array The array of Strings to sort
+	 * @return The sorted array of Strings
+	 */
+	public static String[] stringSort (String[] array) {
+		return stringSort (array, null);
+	}
+	/**
+	 * Perform a multikey quick sort on the given array of Strings with the
+	 * specified ISortEventListener
+	 * @param array The array of Strings to sort
+	 * @param listener The ISortEventListener to use while sorting
+	 * @return The sorted array of Strings
+	 */
+	public static String[] stringSort (String[] array, ISortEventListener<String> listener) {
+		StringSet set = new StringSet ();
+		if (listener != null) {
+			set.addSortEventListener (listener);
+		}
+		set.addAll (Arrays.asList (array));
+		return set.sort (array);
+	}
+	
+}
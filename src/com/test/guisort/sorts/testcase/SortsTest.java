@@ -4,8 +4,12 @@
  */
 package com.test.guisort.sorts.testcase;
  
+import java.io.*;
 import java.lang.reflect.*;
+import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 import junit.framework.*;
 import com.test.guisort.sorts.*;
 
@@ -148,6 +152,9 @@ public class SortsTest extends TestCase {
     	test_SortingSet (HeapSet.class, array.clone (), null);
     	test_SortingSet (MergeSet.class, array.clone (), null);
     	test_SortingSet (QuickSet.class, array.clone (), null);
+    	test_SortingSet (PdqSet.class, array.clone (), null);
+    	test_SortingSet (PrimitiveSet.class, array.clone (), null);
+    	test_SortingSet (AutoSet.class, array.clone (), null);
     }
     
     /*
@@ -162,6 +169,9 @@ public class SortsTest extends TestCase {
     	test_SortingSetWithEvents (HeapSet.class, array.clone ());
     	test_SortingSetWithEvents (MergeSet.class, array.clone ());
     	test_SortingSetWithEvents (QuickSet.class, array.clone ());
+    	test_SortingSetWithEvents (PdqSet.class, array.clone ());
+    	test_SortingSetWithEvents (PrimitiveSet.class, array.clone ());
+    	test_SortingSetWithEvents (AutoSet.class, array.clone ());
     }
     
     /**
@@ -229,5 +239,1201 @@ public class SortsTest extends TestCase {
         test_SortingWithEvents (CONSTANT_LIST);
         System.gc ();
     }
+    
+    /**
+     * Test case for a SortingSet that maintains its data in sorted order as
+     * items are added one at a time and in bulk, and that a sort on the
+     * already sorted data performs no swaps.
+     */
+    public void test_SortingMaintainSorted () {
+        SortEventListener<Integer> listener = new SortEventListener<Integer> (Integer.class);
+        SortingSet<Integer> set = new QuickSet<Integer> (Arrays.asList (CONSTANT_LIST));
+        set.maintainSorted (true);
+        Assert.assertTrue (set.isSorted ());
+        set.addSortEventListener (listener);
+        
+        set.add (new Integer (7));
+        set.add (new Integer (-1));
+        set.addAll (Arrays.asList (new Integer[] { new Integer (3), new Integer (25) }));
+        set.addAll (Arrays.asList (CONSTANT_LIST));
+        Assert.assertTrue (set.remove (new Integer (20)));
+        Assert.assertFalse (set.remove (new Integer (21)));
+        
+        Integer[] array = set.toArray (new Integer[set.size ()]);
+        Assert.assertEquals (CONSTANT_LIST.length * 2 + 3, array.length);
+        for (int i = 1; i < array.length; ++i) {
+            Assert.assertTrue (array[i - 1].compareTo (array[i]) <= 0);
+        }
+        
+        set.sort (new Integer[set.size ()]);
+        Assert.assertEquals (0L, listener.getCount ());
+        System.gc ();
+    }
+    
+    /**
+     * Test case for the sorted order queries on a SortingSet, the constant
+     * list holds each of the values 0-20 once.
+     */
+    public void test_SortingQueries () {
+        SortingSet<Integer> set = new MergeSet<Integer> (Arrays.asList (CONSTANT_LIST));
+        
+        Assert.assertEquals (5, set.rank (new Integer (5)));
+        Assert.assertTrue (set.isSorted ());
+        Assert.assertEquals (12, set.indexOf (new Integer (12)));
+        Assert.assertEquals (-1, set.indexOf (new Integer (42)));
+        Assert.assertTrue (set.contains (new Integer (0)));
+        Assert.assertFalse (set.contains (new Integer (-3)));
+        Assert.assertTrue (set.containsAll (Arrays.asList (CONSTANT_LIST)));
+        Assert.assertEquals (new Integer (20), set.floor (new Integer (25)));
+        Assert.assertNull (set.floor (new Integer (-1)));
+        Assert.assertEquals (new Integer (0), set.ceiling (new Integer (-1)));
+        Assert.assertNull (set.ceiling (new Integer (21)));
+        
+        List<Integer> range = set.range (new Integer (4), new Integer (9));
+        Assert.assertEquals (5, range.size ());
+        for (int i = 0; i < range.size (); ++i) {
+            Assert.assertEquals (new Integer (i + 4), range.get (i));
+        }
+        System.gc ();
+    }
+    
+    /**
+     * Test case for the union, intersection and difference of two sorted
+     * SortingSets and of a SortingSet with a plain list
+     */
+    public void test_SortingSetAlgebra () {
+        List<Integer> evens = new ArrayList<Integer> ();
+        List<Integer> thirds = new ArrayList<Integer> ();
+        for (int i = RANDOM_SIZE - 1; i >= 0; --i) {
+            if (i % 2 == 0) {
+                evens.add (new Integer (i));
+            }
+            if (i % 3 == 0) {
+                thirds.add (new Integer (i));
+            }
+        }
+        
+        SortingSet<Integer> a = new QuickSet<Integer> (evens);
+        SortingSet<Integer> b = new MergeSet<Integer> (thirds);
+        a.sort (new Integer[a.size ()]);
+        b.sort (new Integer[b.size ()]);
+        a.retainAll (b);
+        Assert.assertEquals ((RANDOM_SIZE + 5) / 6, a.size ());
+        for (Integer i : a) {
+            Assert.assertEquals (0, i.intValue () % 6);
+        }
+        
+        SortingSet<Integer> c = new QuickSet<Integer> (evens);
+        c.removeAll (thirds);
+        Assert.assertEquals (evens.size () - a.size (), c.size ());
+        for (Integer i : c) {
+            Assert.assertTrue (i.intValue () % 3 != 0);
+        }
+        
+        c.sort (new Integer[c.size ()]);
+        c.addAll (a);
+        Assert.assertTrue (c.isSorted ());
+        Assert.assertEquals (evens.size (), c.size ());
+        Integer[] array = c.toArray (new Integer[c.size ()]);
+        for (int i = 0; i < array.length; ++i) {
+            Assert.assertEquals (new Integer (i * 2), array[i]);
+        }
+        System.gc ();
+    }
+    
+    /**
+     * Test case for the unique flag on each of the SortingSet classes, the
+     * sorted result holds each of the values 0-20 once
+     */
+    @SuppressWarnings ("unchecked")
+    public void test_SortingUnique () {
+        List<Integer> list = new ArrayList<Integer> ();
+        for (int i = 0; i < RANDOM_SIZE; ++i) {
+            list.add (CONSTANT_LIST[(int) (Math.random () * (double) CONSTANT_LIST.length)]);
+        }
+        list.addAll (Arrays.asList (CONSTANT_LIST));
+        
+        Class<?>[] classes = new Class<?>[] {
+            BubbleSet.class, InsertionSet.class, SelectionSet.class, ShellSet.class,
+            HeapSet.class, MergeSet.class, QuickSet.class,
+        };
+        for (int c = 0; c < classes.length; ++c) {
+            try {
+                SortingSet<Integer> set = (SortingSet<Integer>) classes[c].getConstructor (new Class<?>[] { Collection.class }).newInstance (new Object[] { list, });
+                set.unique (true);
+                Integer[] array = set.sort (new Integer[set.size ()]);
+                
+                Assert.assertEquals (classes[c].getName (), CONSTANT_LIST.length, array.length);
+                for (int i = 0; i < array.length; ++i) {
+                    Assert.assertEquals (new Integer (i), array[i]);
+                }
+            } catch (Exception e) {
+                Assert.fail (e.getMessage ());
+            }
+        }
+        
+        SortingSet<Integer> set = new QuickSet<Integer> (Arrays.asList (CONSTANT_LIST));
+        set.maintainSorted (true);
+        set.unique (true);
+        Assert.assertFalse (set.add (new Integer (3)));
+        Assert.assertFalse (set.addAll (list));
+        Assert.assertEquals (CONSTANT_LIST.length, set.size ());
+        System.gc ();
+    }
+    
+    /**
+     * Test case for the binary insertion mode of the InsertionSet using a
+     * randomly generated data set with many duplicate values
+     */
+    public void test_SortingBinaryInsertion () {
+        Integer[] array = new Integer[RANDOM_SIZE];
+        for (int i = 0; i < array.length; ++i) {
+            array[i] = new Integer ((int) (Math.random () * 100.0));
+        }
+        Integer[] clone = array.clone ();
+        
+        InsertionSet<Integer> set = new InsertionSet<Integer> (Arrays.asList (array));
+        set.binary (true);
+        array = set.sort (array);
+        Arrays.sort (clone);
+        for (int i = 0; i < array.length; ++i) {
+            Assert.assertEquals (clone[i], array[i]);
+        }
+        System.gc ();
+    }
+    
+    /**
+     * Test case for each of the ShellSet gap sequences using a randomly
+     * generated data set
+     */
+    public void test_SortingShellGaps () {
+        Integer[] array = new Integer[RANDOM_SIZE];
+        for (int i = 0; i < array.length; ++i) {
+            array[i] = new Integer ((int) (Math.random () * (double) Integer.MAX_VALUE));
+        }
+        Integer[] clone = array.clone ();
+        Arrays.sort (clone);
+        
+        ShellSet.Gaps[] gaps = ShellSet.Gaps.values ();
+        for (int g = 0; g < gaps.length; ++g) {
+            int[] sequence = gaps[g].gaps (array.length);
+            Assert.assertEquals (1, sequence[sequence.length - 1]);
+            for (int i = 1; i < sequence.length; ++i) {
+                Assert.assertTrue (sequence[i - 1] > sequence[i]);
+            }
+            
+            ShellSet<Integer> set = new ShellSet<Integer> (Arrays.asList (array));
+            set.gaps (gaps[g]);
+            Integer[] sorted = set.sort (array.clone ());
+            for (int i = 0; i < sorted.length; ++i) {
+                Assert.assertEquals (clone[i], sorted[i]);
+            }
+        }
+        System.gc ();
+    }
+    
+    /**
+     * Test case for the selection and partial sorts of the QuickSet, HeapSet
+     * and the default SortingSet implementation using a randomly generated
+     * data set
+     */
+    @SuppressWarnings ("unchecked")
+    public void test_SortingPartial () {
+        Integer[] array = new Integer[RANDOM_SIZE];
+        for (int i = 0; i < array.length; ++i) {
+            array[i] = new Integer ((int) (Math.random () * 500.0));
+        }
+        Integer[] clone = array.clone ();
+        Arrays.sort (clone);
+        
+        Class<?>[] classes = new Class<?>[] { QuickSet.class, HeapSet.class, MergeSet.class, };
+        int[] ks = new int[] { 0, 1, 7, RANDOM_SIZE / 2, RANDOM_SIZE - 1, RANDOM_SIZE };
+        for (int c = 0; c < classes.length; ++c) {
+            for (int k = 0; k < ks.length; ++k) {
+                try {
+                    Constructor<?> constructor = classes[c].getConstructor (new Class<?>[] { Collection.class });
+                    SortingSet<Integer> set = (SortingSet<Integer>) constructor.newInstance (new Object[] { Arrays.asList (array), });
+                    Integer[] sorted = set.partialSort (ks[k], new Integer[0]);
+                    Assert.assertEquals (ks[k], sorted.length);
+                    for (int i = 0; i < sorted.length; ++i) {
+                        Assert.assertEquals (clone[i], sorted[i]);
+                    }
+                    
+                    if (ks[k] < RANDOM_SIZE) {
+                        set = (SortingSet<Integer>) constructor.newInstance (new Object[] { Arrays.asList (array), });
+                        Assert.assertEquals (clone[ks[k]], set.select (ks[k]));
+                    }
+                } catch (Exception e) {
+                    Assert.fail (e.getMessage ());
+                }
+            }
+        }
+        System.gc ();
+    }
+    
+    /**
+     * Test case for BoundedHeapSet collectors filled from several threads and
+     * merged together, the result is the smallest items of the whole stream
+     */
+    public void test_SortingBoundedHeap () throws InterruptedException {
+        final int capacity = 50;
+        final Integer[] array = new Integer[RANDOM_SIZE * 4];
+        for (int i = 0; i < array.length; ++i) {
+            array[i] = new Integer ((int) (Math.random () * (double) Integer.MAX_VALUE));
+        }
+        
+        final List<BoundedHeapSet<Integer> > collectors = new ArrayList<BoundedHeapSet<Integer> > ();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; ++t) {
+            final BoundedHeapSet<Integer> collector = new BoundedHeapSet<Integer> (capacity);
+            final int offset = t;
+            collectors.add (collector);
+            threads[t] = new Thread (new Runnable () {
+                public void run () {
+                    for (int i = offset; i < array.length; i += 4) {
+                        collector.add (array[i]);
+                    }
+                }
+            });
+            threads[t].start ();
+        }
+        BoundedHeapSet<Integer> result = new BoundedHeapSet<Integer> (capacity);
+        for (int t = 0; t < threads.length; ++t) {
+            threads[t].join ();
+            result.merge (collectors.get (t));
+        }
+        
+        Integer[] clone = array.clone ();
+        Arrays.sort (clone);
+        Integer[] sorted = result.sort (new Integer[result.size ()]);
+        Assert.assertEquals (capacity, sorted.length);
+        for (int i = 0; i < sorted.length; ++i) {
+            Assert.assertEquals (clone[i], sorted[i]);
+        }
+        Assert.assertFalse (result.add (clone[array.length - 1]));
+        System.gc ();
+    }
+    
+    /**
+     * Test case for the median and percentiles of the QuickSet and of the
+     * default SortingSet implementation using a randomly generated data set
+     */
+    public void test_SortingPercentiles () {
+        Integer[] array = new Integer[RANDOM_SIZE + 1];
+        for (int i = 0; i < array.length; ++i) {
+            array[i] = new Integer ((int) (Math.random () * 200.0));
+        }
+        Integer[] clone = array.clone ();
+        Arrays.sort (clone);
+        
+        double[] p = new double[] { 99.0, 50.0, 0.0, 90.0, 100.0, 99.9 };
+        List<SortingSet<Integer> > sets = new ArrayList<SortingSet<Integer> > ();
+        sets.add (new QuickSet<Integer> (Arrays.asList (array)));
+        sets.add (new MergeSet<Integer> (Arrays.asList (array)));
+        sets.add (new HeapSet<Integer> (Arrays.asList (array)));
+        for (SortingSet<Integer> set : sets) {
+            Assert.assertEquals (clone[RANDOM_SIZE / 2], set.median ());
+            Integer[] values = set.percentiles (p, new Integer[0]);
+            Assert.assertEquals (p.length, values.length);
+            for (int i = 0; i < p.length; ++i) {
+                int rank = Math.max ((int) Math.ceil (p[i] / 100.0 * array.length) - 1, 0);
+                Assert.assertEquals (clone[rank], values[i]);
+                Assert.assertEquals (clone[rank], set.percentile (p[i]));
+            }
+        }
+        System.gc ();
+    }
+    
+    /**
+     * Test case for the argsort of a SortingSet and for reordering parallel
+     * arrays by the resulting permutation
+     */
+    public void test_SortingArgsort () {
+        Integer[] keys = new Integer[RANDOM_SIZE];
+        int[] ids = new int[RANDOM_SIZE];
+        double[] values = new double[RANDOM_SIZE];
+        for (int i = 0; i < keys.length; ++i) {
+            keys[i] = new Integer ((int) (Math.random () * 100.0));
+            ids[i] = i;
+            values[i] = keys[i].doubleValue () / 2.0;
+        }
+        
+        SortingSet<Integer> set = new QuickSet<Integer> (Arrays.asList (keys));
+        int[] order = set.argsort ();
+        Assert.assertEquals (keys.length, order.length);
+        Assert.assertFalse (set.isSorted ());
+        
+        Permutation.apply (order, keys);
+        Permutation.apply (order, ids);
+        Permutation.apply (order, values);
+        for (int i = 1; i < keys.length; ++i) {
+            Assert.assertTrue (keys[i - 1].compareTo (keys[i]) <= 0);
+            if (keys[i - 1].equals (keys[i])) {
+                Assert.assertTrue (ids[i - 1] < ids[i]);
+            }
+        }
+        for (int i = 0; i < keys.length; ++i) {
+            Assert.assertEquals (order[i], ids[i]);
+            Assert.assertEquals (keys[i].doubleValue () / 2.0, values[i], 0.0);
+        }
+        
+        /* The primitive argsorts match the stable order of the boxed keys */
+        int[] column = new int[RANDOM_SIZE];
+        long[] longs = new long[RANDOM_SIZE];
+        double[] doubles = new double[RANDOM_SIZE];
+        Integer[] boxed = new Integer[RANDOM_SIZE];
+        for (int i = 0; i < column.length; ++i) {
+            column[i] = (int) (Math.random () * 100.0) - 50;
+            longs[i] = column[i] * 3000000000L;
+            doubles[i] = column[i] / 4.0;
+            boxed[i] = Integer.valueOf (column[i]);
+        }
+        int[] expected = Permutation.argsort (boxed);
+        Assert.assertTrue (Arrays.equals (expected, Permutation.argsort (column)));
+        Assert.assertTrue (Arrays.equals (expected, Permutation.argsort (longs)));
+        Assert.assertTrue (Arrays.equals (expected, Permutation.argsort (doubles)));
+        Assert.assertTrue (Arrays.equals (new int[] { 2, 1, 0, 3 }, Permutation.argsort (new double[] { Double.NaN, 0.0, -0.0, Double.NaN })));
+        
+        /* An order that is not a permutation is rejected and nothing moves */
+        int[][] invalid = new int[][] { { 1, 1 }, { 0, 2 }, { -1, 0 }, { 0 } };
+        for (int[] bad : invalid) {
+            int[] data = new int[] { 7, 8 };
+            try {
+                Permutation.apply (bad, data);
+                Assert.fail ("Expected an IllegalArgumentException");
+            } catch (IllegalArgumentException e) {
+            }
+            Assert.assertTrue (Arrays.equals (new int[] { 7, 8 }, data));
+        }
+        try {
+            Permutation.apply (new int[] { 1, 0 }, new int[] { 7, 8 }, new int[] { 9 });
+            Assert.fail ("Expected an IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+        }
+        System.gc ();
+    }
+    
+    /**
+     * Test case for the key extraction sort using a randomly generated medium
+     * size set of java.util.Date objects keyed by their time
+     */
+    public void test_SortingByKey () {
+        Date[] array = new Date[RANDOM_SIZE];
+        for (int i = 0; i < array.length; ++i) {
+            long date = (long) ((Math.random () - 0.5) * 4000000000000.0);
+            array[i] = new Date (date);
+        }
+        Date[] clone = array.clone ();
+        Arrays.sort (clone);
+        
+        KeySort.sort (array, new IKeyExtractor<Date> () {
+            public long key (Date obj) {
+                return obj.getTime ();
+            }
+        });
+        for (int i = 0; i < array.length; ++i) {
+            Assert.assertEquals (clone[i], array[i]);
+        }
+        System.gc ();
+    }
+    
+    /**
+     * Test case for the StringSet using a randomly generated set of URL like
+     * Strings that share long prefixes
+     */
+    public void test_SortingStrings () {
+        String[] prefixes = new String[] {
+            "http://www.example.com/", "http://www.example.com/logs/", "http://www.example.org/", "",
+        };
+        String[] array = new String[RANDOM_SIZE];
+        for (int i = 0; i < array.length; ++i) {
+            array[i] = prefixes[(int) (Math.random () * prefixes.length)] + Integer.toString ((int) (Math.random () * 500.0), 36);
+        }
+        
+        test_SortingSet (StringSet.class, array, null);
+        test_SortingSet (StringSet.class, new String[] { "b", "", "ab", "a", "abc", "", "b" }, null);
+        System.gc ();
+    }
+    
+    /**
+     * Test case for the algorithm chosen by the AutoSet for tiny, presorted,
+     * bounded Integer and random data sets
+     */
+    public void test_SortingAuto () {
+        Integer[] bounded = new Integer[RANDOM_SIZE];
+        Date[] random = new Date[RANDOM_SIZE];
+        Date[] presorted = new Date[RANDOM_SIZE];
+        for (int i = 0; i < RANDOM_SIZE; ++i) {
+            bounded[i] = new Integer ((int) (Math.random () * 500.0));
+            random[i] = new Date ((long) (Math.random () * 2000000000000.0));
+            presorted[i] = new Date (i * 1000L);
+        }
+        presorted[RANDOM_SIZE / 3] = new Date (0L);
+        
+        AutoSet<Integer> set = new AutoSet<Integer> (Arrays.asList (CONSTANT_LIST));
+        set.sort (CONSTANT_LIST.clone ());
+        Assert.assertTrue (set.reason (), set.reason ().startsWith ("InsertionSort"));
+        set = new AutoSet<Integer> (Arrays.asList (bounded));
+        final int[] writes = new int[1];
+        set.addSortEventListener (new ISortEventListener<Integer> () {
+            public void swapPerformed (SortEvent<Integer> event) {
+                Assert.assertEquals (SortEvent.Type.Write, event.getType ());
+                ++writes[0];
+            }
+        });
+        set.sort (bounded.clone ());
+        Assert.assertTrue (set.reason (), set.reason ().startsWith ("RadixSort"));
+        Assert.assertTrue (writes[0] > 0);
+        AutoSet<Date> dates = new AutoSet<Date> (Arrays.asList (random));
+        dates.sort (random.clone ());
+        Assert.assertTrue (dates.reason (), dates.reason ().startsWith ("QuickSort"));
+        dates = new AutoSet<Date> (Arrays.asList (presorted));
+        dates.sort (presorted.clone ());
+        Assert.assertTrue (dates.reason (), dates.reason ().startsWith ("MergeSort"));
+        
+        /* Distinct data just over the insertion threshold has no sampled
+         * duplicates, whatever its length */
+        for (int n = 33; n <= 80; ++n) {
+            List<Date> distinct = new ArrayList<Date> ();
+            for (int i = 0; i < n; ++i) {
+                distinct.add (new Date ((n - i) * 1000L));
+            }
+            dates = new AutoSet<Date> (distinct);
+            dates.sort (new Date[n]);
+            Assert.assertTrue (dates.reason (), dates.reason ().endsWith (" 0% sampled duplicates"));
+        }
+        
+        test_SortingSet (AutoSet.class, bounded, null);
+        test_SortingSet (AutoSet.class, presorted, null);
+        System.gc ();
+    }
+    
+    /**
+     * Test case for the inversions, runs, Rem, Osc and duplicate ratio measured
+     * by Presortedness, sequentially and in parallel
+     */
+    public void test_SortingPresortedness () {
+        List<Integer> data = Arrays.asList (3, 1, 2, 5, 4, 4);
+        Presortedness measure = new Presortedness (data);
+        Assert.assertEquals (6, measure.size ());
+        Assert.assertEquals (4, measure.inversions ());
+        Assert.assertEquals (3, measure.runs ());
+        Assert.assertEquals (4, measure.longestAscending ());
+        Assert.assertEquals (2, measure.rem ());
+        Assert.assertEquals (4, measure.osc ());
+        Assert.assertEquals (1.0 / 6.0, measure.duplicateRatio (), 1e-9);
+        
+        Presortedness sorted = new Presortedness (Arrays.asList (1, 2, 3, 4));
+        Assert.assertEquals (0, sorted.inversions ());
+        Assert.assertEquals (1, sorted.runs ());
+        Assert.assertEquals (0, sorted.rem ());
+        Assert.assertEquals (0, sorted.osc ());
+        
+        Random random = new Random (39);
+        List<Integer> large = new ArrayList<Integer> ();
+        for (int i = 0; i < 20000; ++i) {
+            large.add (random.nextInt (1000));
+        }
+        long expected = 0;
+        for (int i = 0; i < 2000; ++i) {
+            for (int j = i + 1; j < 2000; ++j) {
+                if (large.get (i) > large.get (j)) {
+                    ++expected;
+                }
+            }
+        }
+        Assert.assertEquals (expected, new Presortedness (large.subList (0, 2000)).inversions ());
+        Assert.assertEquals (new Presortedness (large).inversions (), new Presortedness (large, true).inversions ());
+        System.gc ();
+    }
+    
+    /**
+     * Test case for the sorting networks of every size with the 0-1 principle
+     * and for the QuickSet that finishes with them
+     */
+    public void test_SortingNetworks () {
+        for (int n = 0; n <= SortingNetwork.MAX_SIZE; ++n) {
+            for (int mask = 0; mask < (1 << n); ++mask) {
+                int[] bits = new int[n + 2];
+                for (int i = 0; i < n; ++i) {
+                    bits[i + 1] = (mask >> i) & 1;
+                }
+                SortingNetwork.sort (bits, 1, n + 1);
+                for (int i = 2; i <= n; ++i) {
+                    Assert.assertTrue (bits[i - 1] <= bits[i]);
+                }
+            }
+        }
+        
+        Random random = new Random (40);
+        for (int n = 0; n <= SortingNetwork.MAX_SIZE; ++n) {
+            long[] data = new long[n];
+            for (int i = 0; i < n; ++i) {
+                data[i] = random.nextLong ();
+            }
+            long[] expected = data.clone ();
+            Arrays.sort (expected);
+            SortingNetwork.sort (data, 0, n);
+            Assert.assertTrue (Arrays.equals (expected, data));
+        }
+        
+        try {
+            SortingNetwork.sort (new int[20], 0, 20);
+            Assert.fail ("Expected an IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+        }
+        
+        for (int n = 1; n <= 40; ++n) {
+            Integer[] data = new Integer[n];
+            for (int i = 0; i < n; ++i) {
+                data[i] = random.nextInt (8);
+            }
+            Integer[] expected = data.clone ();
+            Arrays.sort (expected);
+            Assert.assertTrue (Arrays.equals (expected, QuickSet.quickSort (data)));
+        }
+        System.gc ();
+    }
+    
+    /**
+     * Test case for the block partitioned QuickSet and the PrimitiveSort block
+     * quick sort of random, duplicate and reversed data
+     */
+    public void test_SortingBlockPartition () {
+        Random random = new Random (41);
+        int[] sizes = { 0, 1, 17, 200, 1000, 5000 };
+        for (int size : sizes) {
+            for (int bound : new int[] { 2, 50, Integer.MAX_VALUE }) {
+                Integer[] data = new Integer[size];
+                for (int i = 0; i < size; ++i) {
+                    data[i] = random.nextInt (bound);
+                }
+                Integer[] expected = data.clone ();
+                Arrays.sort (expected);
+                
+                QuickSet<Integer> set = new QuickSet<Integer> (Arrays.asList (data));
+                set.block (true);
+                Assert.assertTrue (set.block ());
+                Assert.assertTrue (Arrays.equals (expected, set.sort (new Integer[size])));
+                
+                List<Integer> reversed = new ArrayList<Integer> (Arrays.asList (expected));
+                Collections.reverse (reversed);
+                set = new QuickSet<Integer> (reversed);
+                set.block (true);
+                Assert.assertTrue (Arrays.equals (expected, set.sort (new Integer[size])));
+                
+                set = new QuickSet<Integer> (Arrays.asList (data));
+                set.block (true);
+                Integer[] partial = set.partialSort (size / 3, new Integer[0]);
+                Assert.assertTrue (Arrays.equals (Arrays.copyOf (expected, size / 3), partial));
+            }
+        }
+        
+        for (int size : new int[] { 0, 5, 100, 3000, 100000 }) {
+            for (int bound : new int[] { 1, 3, 1000, Integer.MAX_VALUE }) {
+                int[] ints = new int[size];
+                long[] longs = new long[size];
+                for (int i = 0; i < size; ++i) {
+                    ints[i] = random.nextInt (bound) - bound / 2;
+                    longs[i] = (bound == Integer.MAX_VALUE) ? random.nextLong () : ints[i];
+                }
+                int[] expectedInts = ints.clone ();
+                long[] expectedLongs = longs.clone ();
+                Arrays.sort (expectedInts);
+                Arrays.sort (expectedLongs);
+                Assert.assertTrue (Arrays.equals (expectedInts, PrimitiveSort.sort (ints)));
+                Assert.assertTrue (Arrays.equals (expectedLongs, PrimitiveSort.sort (longs)));
+                
+                int[] organ = new int[size];
+                for (int i = 0; i < size; ++i) {
+                    organ[i] = Math.min (i, size - i);
+                }
+                int[] expectedOrgan = organ.clone ();
+                Arrays.sort (expectedOrgan, Math.min (1, size), size / 2);
+                PrimitiveSort.sort (organ, Math.min (1, size), size / 2);
+                Assert.assertTrue (Arrays.equals (expectedOrgan, organ));
+            }
+        }
+        System.gc ();
+    }
+    
+    /**
+     * Test case for the PrimitiveSort of floating point values and for the
+     * PrimitiveSet of Integer, Long, Double and mixed data
+     */
+    public void test_SortingPrimitive () {
+        Random random = new Random (42);
+        float[] floats = new float[5000];
+        double[] doubles = new double[5000];
+        for (int i = 0; i < floats.length; ++i) {
+            floats[i] = (i % 97 == 0) ? Float.NaN : (i % 89 == 0) ? -0.0f : (float) random.nextGaussian ();
+            doubles[i] = (i % 97 == 0) ? Double.NaN : (i % 89 == 0) ? 0.0 : random.nextGaussian ();
+        }
+        floats[1] = 0.0f;
+        floats[2] = Float.NEGATIVE_INFINITY;
+        doubles[1] = -0.0;
+        doubles[2] = Double.POSITIVE_INFINITY;
+        float[] expectedFloats = floats.clone ();
+        double[] expectedDoubles = doubles.clone ();
+        Arrays.sort (expectedFloats);
+        Arrays.sort (expectedDoubles);
+        Assert.assertTrue (Arrays.equals (expectedFloats, PrimitiveSort.sort (floats)));
+        Assert.assertTrue (Arrays.equals (expectedDoubles, PrimitiveSort.sort (doubles)));
+        
+        Long[] longs = new Long[RANDOM_SIZE];
+        Double[] boxed = new Double[RANDOM_SIZE];
+        for (int i = 0; i < RANDOM_SIZE; ++i) {
+            longs[i] = new Long (random.nextLong ());
+            boxed[i] = new Double (random.nextDouble ());
+        }
+        test_SortingSet (PrimitiveSet.class, longs, null);
+        test_SortingSet (PrimitiveSet.class, boxed, null);
+        
+        List<Number> mixed = new ArrayList<Number> ();
+        mixed.add (new Integer (3));
+        mixed.add (new Long (1L));
+        PrimitiveSet<Number> set = new PrimitiveSet<Number> (mixed);
+        try {
+            set.sort (new Number[2]);
+            Assert.fail ("Expected a ClassCastException from the fallback sort");
+        } catch (ClassCastException e) {
+        }
+        
+        Integer[] unique = { 5, 3, 5, 1, 3 };
+        PrimitiveSet<Integer> integers = new PrimitiveSet<Integer> (Arrays.asList (unique));
+        integers.unique (true);
+        Assert.assertTrue (Arrays.equals (new Integer[] { 1, 3, 5 }, integers.sort (new Integer[5])));
+        System.gc ();
+    }
+    
+    /**
+     * Test case for the PdqSet on the patterns it is built to handle:
+     * presorted, reversed, organ pipe, sawtooth and duplicate heavy data
+     */
+    public void test_SortingPdq () {
+        Random random = new Random (43);
+        int size = 20000;
+        List<Integer[]> patterns = new ArrayList<Integer[]> ();
+        Integer[] sorted = new Integer[size], reversed = new Integer[size], organ = new Integer[size];
+        Integer[] sawtooth = new Integer[size], duplicates = new Integer[size], nearly = new Integer[size];
+        for (int i = 0; i < size; ++i) {
+            sorted[i] = new Integer (i);
+            reversed[i] = new Integer (size - i);
+            organ[i] = new Integer (Math.min (i, size - i));
+            sawtooth[i] = new Integer (i % 137);
+            duplicates[i] = new Integer (random.nextInt (4));
+            nearly[i] = new Integer (i);
+        }
+        for (int i = 0; i < 10; ++i) {
+            Collections.swap (Arrays.asList (nearly), random.nextInt (size), random.nextInt (size));
+        }
+        patterns.add (sorted);
+        patterns.add (reversed);
+        patterns.add (organ);
+        patterns.add (sawtooth);
+        patterns.add (duplicates);
+        patterns.add (nearly);
+        for (Integer[] pattern : patterns) {
+            Integer[] expected = pattern.clone ();
+            Arrays.sort (expected);
+            Assert.assertTrue (Arrays.equals (expected, PdqSet.pdqSort (pattern.clone ())));
+        }
+        
+        final int[] events = new int[1];
+        PdqSet.pdqSort (sorted.clone (), new ISortEventListener<Integer> () {
+            public void swapPerformed (SortEvent<Integer> event) {
+                ++events[0];
+            }
+        });
+        Assert.assertTrue ("Swaps on presorted data: " + events[0], events[0] <= 2);
+        System.gc ();
+    }
+    
+    /**
+     * Test case for the SegmentedSort of object, int and long segments on the
+     * calling thread and on a ForkJoinPool
+     */
+    public void test_SortingSegmented () {
+        Random random = new Random (44);
+        int[] offsets = new int[2001];
+        for (int i = 1; i < offsets.length; ++i) {
+            offsets[i] = offsets[i - 1] + ((i % 50 == 0) ? 0 : 5 + random.nextInt (200));
+        }
+        int length = offsets[offsets.length - 1];
+        Integer[] objects = new Integer[length];
+        int[] ints = new int[length];
+        long[] longs = new long[length];
+        for (int i = 0; i < length; ++i) {
+            ints[i] = random.nextInt (1000);
+            objects[i] = new Integer (ints[i]);
+            longs[i] = random.nextLong ();
+        }
+        Integer[] expectedObjects = objects.clone ();
+        int[] expectedInts = ints.clone ();
+        long[] expectedLongs = longs.clone ();
+        for (int i = 1; i < offsets.length; ++i) {
+            Arrays.sort (expectedObjects, offsets[i - 1], offsets[i]);
+            Arrays.sort (expectedInts, offsets[i - 1], offsets[i]);
+            Arrays.sort (expectedLongs, offsets[i - 1], offsets[i]);
+        }
+        
+        Assert.assertTrue (Arrays.equals (expectedObjects, SegmentedSort.sort (objects.clone (), offsets)));
+        Assert.assertTrue (Arrays.equals (expectedInts, SegmentedSort.sort (ints.clone (), offsets)));
+        Assert.assertTrue (Arrays.equals (expectedLongs, SegmentedSort.sort (longs.clone (), offsets)));
+        
+        ForkJoinPool pool = new ForkJoinPool (4);
+        Assert.assertTrue (Arrays.equals (expectedObjects, SegmentedSort.sort (objects.clone (), offsets, pool)));
+        Assert.assertTrue (Arrays.equals (expectedInts, SegmentedSort.sort (ints.clone (), offsets, pool)));
+        Assert.assertTrue (Arrays.equals (expectedLongs, SegmentedSort.sort (longs.clone (), offsets, pool)));
+        pool.shutdown ();
+        
+        try {
+            SegmentedSort.sort (new int[10], new int[] { 0, 6, 4, 10 });
+            Assert.fail ("Expected an IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+        }
+        System.gc ();
+    }
+    
+    /*
+     * A subscriber that counts and records the events it receives,
+     * requesting a batch at a time
+     */
+    private static class CountingSubscriber implements ISortEventSubscriber {
+        private ISortEventSubscription _subscription;
+        private final long _initial;
+        private final AtomicLong _events = new AtomicLong ();
+        private final List<Integer> _received = Collections.synchronizedList (new ArrayList<Integer> ());
+        private volatile Throwable _error;
+        private final CountDownLatch _done = new CountDownLatch (1);
+        
+        public CountingSubscriber (long initial) {
+            _initial = initial;
+        }
+        public void onSubscribe (ISortEventSubscription subscription) {
+            _subscription = subscription;
+            if (_initial > 0) {
+                subscription.request (_initial);
+            }
+        }
+        public void onNext (int[] events) {
+            _events.addAndGet (events.length / 3);
+            for (int value : events) {
+                _received.add (Integer.valueOf (value));
+            }
+            _subscription.request (1);
+        }
+        public void onError (Throwable throwable) {
+            _error = throwable;
+            _done.countDown ();
+        }
+        public void onComplete () {
+            _done.countDown ();
+        }
+    }
+    
+    /**
+     * Test case for the SortEventPublisher delivering the events of a sort
+     * in batches with each of the overflow strategies
+     */
+    public void test_SortingPublisher () throws InterruptedException {
+        Integer[] data = new Integer[RANDOM_SIZE];
+        Random random = new Random (46);
+        for (int i = 0; i < data.length; ++i) {
+            data[i] = new Integer (random.nextInt ());
+        }
+        final AtomicLong events = new AtomicLong ();
+        ISortEventListener<Integer> counter = new ISortEventListener<Integer> () {
+            public void swapPerformed (SortEvent<Integer> event) {
+                events.incrementAndGet ();
+            }
+        };
+        ExecutorService executor = Executors.newSingleThreadExecutor ();
+        
+        for (SortEventPublisher.Overflow overflow : SortEventPublisher.Overflow.values ()) {
+            events.set (0);
+            SortEventPublisher<Integer> publisher = new SortEventPublisher<Integer> (executor, 64, 16, overflow);
+            CountingSubscriber eager = new CountingSubscriber (1);
+            CountingSubscriber idle = new CountingSubscriber (0);
+            publisher.subscribe (eager);
+            if (overflow != SortEventPublisher.Overflow.Block) {
+                publisher.subscribe (idle);
+            }
+            
+            QuickSet<Integer> set = new QuickSet<Integer> (Arrays.asList (data));
+            set.addSortEventListener (counter);
+            set.addSortEventListener (publisher);
+            set.sort (new Integer[data.length]);
+            publisher.close ();
+            
+            Assert.assertTrue (eager._done.await (10, TimeUnit.SECONDS));
+            switch (overflow) {
+            case Block:
+                Assert.assertNull (eager._error);
+                Assert.assertEquals (events.get (), eager._events.get ());
+                Assert.assertEquals (0, publisher.dropped ());
+                break;
+            case Error:
+                idle._subscription.request (Long.MAX_VALUE);
+                Assert.assertTrue (idle._done.await (10, TimeUnit.SECONDS));
+                Assert.assertTrue (idle._error instanceof IllegalStateException);
+                break;
+            default:
+                idle._subscription.request (Long.MAX_VALUE);
+                Assert.assertTrue (idle._done.await (10, TimeUnit.SECONDS));
+                Assert.assertNull (idle._error);
+                Assert.assertEquals (64, idle._events.get ());
+                Assert.assertTrue (publisher.dropped () >= events.get () - 64);
+                break;
+            }
+        }
+        executor.shutdown ();
+        System.gc ();
+    }
+    
+    /**
+     * Test case for the SortEvent types delivered by the SortEventPublisher,
+     * the Move events of the binary InsertionSet and the Write events of the
+     * MergeSet and ShellSet arrive with their types and indices
+     */
+    public void test_SortingPublisherTypes () throws InterruptedException {
+        Integer[] data = new Integer[RANDOM_SIZE];
+        Random random = new Random (49);
+        for (int i = 0; i < data.length; ++i) {
+            data[i] = Integer.valueOf (random.nextInt ());
+        }
+        InsertionSet<Integer> insertion = new InsertionSet<Integer> (Arrays.asList (data));
+        insertion.binary (true);
+        List<SortingSet<Integer> > sets = new ArrayList<SortingSet<Integer> > ();
+        sets.add (insertion);
+        sets.add (new MergeSet<Integer> (Arrays.asList (data)));
+        sets.add (new ShellSet<Integer> (Arrays.asList (data)));
+        SortEvent.Type[] expected = new SortEvent.Type[] { SortEvent.Type.Move, SortEvent.Type.Write, SortEvent.Type.Write };
+        ExecutorService executor = Executors.newSingleThreadExecutor ();
+        
+        for (int s = 0; s < sets.size (); ++s) {
+            final List<Integer> fired = new ArrayList<Integer> ();
+            SortEventPublisher<Integer> publisher = new SortEventPublisher<Integer> (executor, 64, 16, SortEventPublisher.Overflow.Block);
+            CountingSubscriber subscriber = new CountingSubscriber (1);
+            publisher.subscribe (subscriber);
+            
+            SortingSet<Integer> set = sets.get (s);
+            set.addSortEventListener (new ISortEventListener<Integer> () {
+                public void swapPerformed (SortEvent<Integer> event) {
+                    fired.add (Integer.valueOf (event.getType ().ordinal ()));
+                    fired.add (Integer.valueOf (event.getIndex0 ()));
+                    fired.add (Integer.valueOf (event.getIndex1 ()));
+                }
+            });
+            set.addSortEventListener (publisher);
+            set.sort (new Integer[data.length]);
+            publisher.close ();
+            
+            Assert.assertTrue (subscriber._done.await (10, TimeUnit.SECONDS));
+            Assert.assertNull (subscriber._error);
+            Assert.assertEquals (fired, subscriber._received);
+            int typed = 0;
+            for (int i = 0; i < subscriber._received.size (); i += 3) {
+                if (subscriber._received.get (i).intValue () == expected[s].ordinal ()) {
+                    ++typed;
+                }
+            }
+            Assert.assertTrue (set.getClass ().getSimpleName (), typed > 0);
+        }
+        executor.shutdown ();
+        System.gc ();
+    }
+    
+    /**
+     * Test case for cancelling each sorting algorithm before and during a sort,
+     * the data must remain intact and sort completely once the token is cleared
+     */
+    public void test_SortingCancellation () {
+        Random random = new Random (47);
+        Integer[] array = new Integer[600];
+        for (int i = 0; i < array.length; ++i) {
+            array[i] = new Integer (random.nextInt ());
+        }
+        Integer[] expected = array.clone ();
+        Arrays.sort (expected);
+        
+        List<SortingSet<Integer> > sets = new ArrayList<SortingSet<Integer> > ();
+        sets.add (new BubbleSet<Integer> ());
+        sets.add (new InsertionSet<Integer> ());
+        sets.add (new SelectionSet<Integer> ());
+        sets.add (new ShellSet<Integer> ());
+        sets.add (new HeapSet<Integer> ());
+        sets.add (new MergeSet<Integer> ());
+        sets.add (new QuickSet<Integer> ());
+        sets.add (new PdqSet<Integer> ());
+        sets.add (new PrimitiveSet<Integer> ());
+        sets.add (new AutoSet<Integer> ());
+        for (SortingSet<Integer> set : sets) {
+            String name = set.getClass ().getSimpleName ();
+            set.addAll (Arrays.asList (array));
+            CancellationToken cancelled = new CancellationToken ();
+            cancelled.cancel ();
+            set.cancellation (cancelled);
+            try {
+                set.sort (array.clone ());
+                Assert.fail (name + " sorted with a cancelled token");
+            } catch (CancellationException ce) {
+            }
+            Integer[] contents = set.toArray (new Integer[0]);
+            Arrays.sort (contents);
+            Assert.assertTrue (name, Arrays.equals (expected, contents));
+            
+            final CancellationToken token = new CancellationToken ();
+            final AtomicInteger events = new AtomicInteger ();
+            set.addSortEventListener (new ISortEventListener<Integer> () {
+                public void swapPerformed (SortEvent<Integer> event) {
+                    if (events.incrementAndGet () == 100) {
+                        token.cancel ();
+                    }
+                }
+            });
+            set.cancellation (token);
+            try {
+                set.sort (array.clone ());
+            } catch (CancellationException ce) {
+                Assert.assertTrue (name + " progress " + set.progress (), set.progress () < 1.0);
+            }
+            contents = set.toArray (new Integer[0]);
+            Arrays.sort (contents);
+            Assert.assertTrue (name, Arrays.equals (expected, contents));
+            
+            set.cancellation (null);
+            Assert.assertTrue (name, Arrays.equals (expected, set.sort (array.clone ())));
+            Assert.assertTrue (name, set.progress () == 1.0);
+        }
+        
+        CancellationToken deadline = new CancellationToken (0, TimeUnit.MILLISECONDS);
+        Assert.assertTrue (deadline.isCancelled ());
+        Assert.assertFalse (new CancellationToken (1, TimeUnit.HOURS).isCancelled ());
+        System.gc ();
+    }
+    
+    /**
+     * Test case for the ExternalSort of a file of keys, killing the sort after
+     * each step and resuming it from the manifest of its work directory
+     */
+    public void test_SortingExternal () throws IOException {
+        Random random = new Random (48);
+        long[] keys = new long[10000];
+        File input = File.createTempFile ("external", ".bin");
+        DataOutputStream out = new DataOutputStream (new BufferedOutputStream (new FileOutputStream (input)));
+        try {
+            for (int i = 0; i < keys.length; ++i) {
+                keys[i] = random.nextInt (5000) - 2500;
+                out.writeLong (keys[i]);
+            }
+        } finally {
+            out.close ();
+        }
+        Arrays.sort (keys);
+        
+        /* An uninterrupted sort to count the steps */
+        File directory = Files.createTempDirectory ("external").toFile ();
+        File output = new File (directory, "sorted.bin");
+        ExternalSort sort = new ExternalSort (input, output, directory, 500, 4);
+        int steps = 1;
+        while (sort.step ()) {
+            ++steps;
+        }
+        Assert.assertTrue (Arrays.equals (keys, readKeys (output)));
+        
+        /* Kill the sort part way through and resume it from the manifest */
+        File resumed = Files.createTempDirectory ("external").toFile ();
+        output = new File (resumed, "sorted.bin");
+        sort = new ExternalSort (input, output, resumed, 500, 4);
+        for (int i = 0; i < steps / 2; ++i) {
+            Assert.assertTrue (sort.step ());
+        }
+        sort = new ExternalSort (input, output, resumed, 500, 4);
+        int remaining = 1;
+        while (sort.step ()) {
+            ++remaining;
+        }
+        Assert.assertEquals (steps - steps / 2, remaining);
+        Assert.assertTrue (Arrays.equals (keys, readKeys (output)));
+        
+        /* Kill the sort after every step */
+        File killed = Files.createTempDirectory ("external").toFile ();
+        output = new File (killed, "sorted.bin");
+        int restarts = 0;
+        while (new ExternalSort (input, output, killed, 500, 4).step ()) {
+            ++restarts;
+        }
+        Assert.assertEquals (steps - 1, restarts);
+        Assert.assertTrue (Arrays.equals (keys, readKeys (output)));
+        Assert.assertFalse (new ExternalSort (input, output, killed, 500, 4).step ());
+        
+        /* Kill the sort inside a merge step, after it wrote keys to its run but
+         * before its checkpoint, the resumed sort must drop the stray keys */
+        File torn = Files.createTempDirectory ("external").toFile ();
+        output = new File (torn, "sorted.bin");
+        int tears = 0;
+        while (true) {
+            Properties manifest = new Properties ();
+            File file = new File (torn, ExternalSort.MANIFEST);
+            if (file.exists ()) {
+                InputStream in = new FileInputStream (file);
+                try {
+                    manifest.load (in);
+                } finally {
+                    in.close ();
+                }
+            }
+            if ("merge".equals (manifest.getProperty ("phase")) && Long.parseLong (manifest.getProperty ("written")) > 0) {
+                int generation = Integer.parseInt (manifest.getProperty ("generation")) + 1;
+                String merged = manifest.getProperty ("merged");
+                int group = (merged.length () == 0) ? 0 : merged.split (",").length;
+                File target = new File (torn, "run-" + generation + "-" + group + ".bin");
+                out = new DataOutputStream (new BufferedOutputStream (new FileOutputStream (target, true)));
+                try {
+                    for (int i = 0; i < 100; ++i) {
+                        out.writeLong (Long.MIN_VALUE + i);
+                    }
+                } finally {
+                    out.close ();
+                }
+                ++tears;
+            }
+            if (!new ExternalSort (input, output, torn, 500, 4).step ()) {
+                break;
+            }
+        }
+        Assert.assertTrue (tears > 0);
+        Assert.assertTrue (Arrays.equals (keys, readKeys (output)));
+        
+        /* Regenerate the input at the same path while the sort is killed, and
+         * again once it is done, each time the sort must start over */
+        File changed = Files.createTempDirectory ("external").toFile ();
+        output = new File (changed, "sorted.bin");
+        sort = new ExternalSort (input, output, changed, 500, 4);
+        for (int i = 0; i < steps / 2; ++i) {
+            Assert.assertTrue (sort.step ());
+        }
+        for (int length : new int[] { 7000, 7000 }) {
+            keys = new long[length];
+            out = new DataOutputStream (new BufferedOutputStream (new FileOutputStream (input)));
+            try {
+                for (int i = 0; i < keys.length; ++i) {
+                    keys[i] = random.nextLong ();
+                    out.writeLong (keys[i]);
+                }
+            } finally {
+                out.close ();
+            }
+            Assert.assertTrue (input.setLastModified (input.lastModified () - 60000L));
+            Arrays.sort (keys);
+            sort = new ExternalSort (input, output, changed, 500, 4);
+            while (sort.step ()) {
+            }
+            Assert.assertTrue (Arrays.equals (keys, readKeys (output)));
+        }
+        
+        /* A finished work directory sorts again for another output */
+        File moved = new File (changed, "moved.bin");
+        Assert.assertTrue (new ExternalSort (input, moved, changed, 500, 4).step ());
+        sort = new ExternalSort (input, moved, changed, 500, 4);
+        while (sort.step ()) {
+        }
+        Assert.assertTrue (Arrays.equals (keys, readKeys (moved)));
+        
+        for (File dir : new File[] { directory, resumed, killed, torn, changed }) {
+            for (File file : dir.listFiles ()) {
+                file.delete ();
+            }
+            dir.delete ();
+        }
+        input.delete ();
+        System.gc ();
+    }
+    
+    /*
+     * Read a file of keys written by a DataOutputStream
+     * @param file The file of keys
+     * @return The keys of the file
+     */
+    private static long[] readKeys (File file) throws IOException {
+        long[] keys = new long[(int) (file.length () / 8)];
+        DataInputStream in = new DataInputStream (new BufferedInputStream (new FileInputStream (file)));
+        try {
+            for (int i = 0; i < keys.length; ++i) {
+                keys[i] = in.readLong ();
+            }
+        } finally {
+            in.close ();
+        }
+        return keys;
+    }
+    
+    /**
+     * Test case for the SortEvent types, a mirror of each set updated from the
+     * events alone must match the set after every event and after the sort
+     */
+    public void test_SortingEventMirror () {
+        Random random = new Random (49);
+        Integer[] array = new Integer[300];
+        for (int i = 0; i < array.length; ++i) {
+            array[i] = new Integer (random.nextInt (100));
+        }
+        
+        List<SortingSet<Integer> > sets = new ArrayList<SortingSet<Integer> > ();
+        sets.add (new BubbleSet<Integer> ());
+        sets.add (new InsertionSet<Integer> ());
+        InsertionSet<Integer> binary = new InsertionSet<Integer> ();
+        binary.binary (true);
+        sets.add (binary);
+        sets.add (new SelectionSet<Integer> ());
+        sets.add (new ShellSet<Integer> ());
+        sets.add (new HeapSet<Integer> ());
+        sets.add (new MergeSet<Integer> ());
+        sets.add (new QuickSet<Integer> ());
+        sets.add (new PdqSet<Integer> ());
+        sets.add (new PrimitiveSet<Integer> ());
+        for (SortingSet<Integer> set : sets) {
+            final String name = set.getClass ().getSimpleName ();
+            final Map<Set<Integer>, Object[]> mirrors = new IdentityHashMap<Set<Integer>, Object[]> ();
+            set.addAll (Arrays.asList (array));
+            mirrors.put (set, set.toArray ());
+            set.addSortEventListener (new ISortEventListener<Integer> () {
+                public void swapPerformed (SortEvent<Integer> event) {
+                    Set<Integer> source = event.getSet ();
+                    Object[] mirror = mirrors.get (source);
+                    if (mirror == null) {
+                        mirrors.put (source, source.toArray ());
+                        return;
+                    }
+                    int index0 = event.getIndex0 (), index1 = event.getIndex1 ();
+                    switch (event.getType ()) {
+                    case Swap:
+                        Object value = mirror[index0];
+                        mirror[index0] = mirror[index1];
+                        mirror[index1] = value;
+                        break;
+                    case Write:
+                        mirror[index0] = event.getValue ();
+                        break;
+                    case Move:
+                        if (index0 < index1) {
+                            System.arraycopy (mirror, index0, mirror, index0 + 1, index1 - index0);
+                        } else {
+                            System.arraycopy (mirror, index1 + 1, mirror, index1, index0 - index1);
+                        }
+                        mirror[index0] = event.getValue ();
+                        break;
+                    }
+                    Assert.assertTrue (name + " " + event.getType (), Arrays.equals (source.toArray (), mirror));
+                }
+            });
+            set.sort (array.clone ());
+            for (Map.Entry<Set<Integer>, Object[]> entry : mirrors.entrySet ()) {
+                Assert.assertTrue (name, Arrays.equals (entry.getKey ().toArray (), entry.getValue ()));
+            }
+        }
+        System.gc ();
+    }
 
 }
@@ -5,11 +5,13 @@
 package com.test.guisort.ui;
 
 import java.text.*;
+import java.util.concurrent.*;
 import java.awt.*;
 import java.awt.event.*;
 import javax.swing.*;
 import javax.swing.border.*;
 import javax.swing.event.*;
+import com.test.guisort.sorts.CancellationToken;
 
 /**
  * Main display panel for this project, contains the controls, buttons, and
@@ -41,6 +43,10 @@ public class DisplayPanel extends JPanel {
 		private JComponent _button;
 		/* A label that can contains the sort time upon completion */
 		private JLabel _timeLabel;
+		/* A button to enable while running the sort */
+		private JComponent _cancelButton;
+		/* The token that cancels the running sort */
+		private CancellationToken _cancellation;
 		
 		/**
 		 * Creates a new SortingRunner with the given SortingPanel size of data
@@ -65,6 +71,22 @@ public class DisplayPanel extends JPanel {
 			_button = button;
 			_timeLabel = timeLabel;
 		}
+		/**
+		 * Creates a new SortingRunner with the given SortingPanel size of data
+		 * set to generate, component to disable and cancel component to enable
+		 * while running
+		 * @param sortingPanel SortingPanel to update while sorting
+		 * @param size Size of the dataset to generate
+		 * @param button Component to disable while running
+		 * @param cancelButton Component to enable while running
+		 * @param timeLabel Label to display the algorithm completion time
+		 * @param cancellation Token that cancels the sort
+		 */
+		public SortingRunner (SortingPanel sortingPanel, int size, JComponent button, JComponent cancelButton, JLabel timeLabel, CancellationToken cancellation) {
+			this (sortingPanel, size, button, timeLabel);
+			_cancelButton = cancelButton;
+			_cancellation = cancellation;
+		}
 		
 		/**
 		 * @see java.lang.Runnable#run ()
@@ -73,6 +95,9 @@ public class DisplayPanel extends JPanel {
 			if (_button != null) {
 				_button.setEnabled (false);
 			}
+			if (_cancelButton != null) {
+				_cancelButton.setEnabled (true);
+			}
 			
 			Integer[] data = new Integer[_size];
 			for (int i = 0; i < data.length; ++i) {
@@ -84,10 +109,12 @@ public class DisplayPanel extends JPanel {
 			try {
 				long startTime = System.currentTimeMillis ();
 				
-				_sortingPanel.algorighm ().execute (_sortingPanel, data);
+				_sortingPanel.algorighm ().execute (_sortingPanel, data, _cancellation);
 				
 				long sortTime = System.currentTimeMillis () - startTime;
 				_timeLabel.setText (sortTime + " ms");
+			} catch (CancellationException ce) {
+				_timeLabel.setText ("Cancelled");
 			} catch (Throwable t) {
 				_timeLabel.setText ("Error");
 				Utils.showException (_sortingPanel, t);
@@ -95,6 +122,9 @@ public class DisplayPanel extends JPanel {
 			
 			_sortingPanel.repaint ();
 			
+			if (_cancelButton != null) {
+				_cancelButton.setEnabled (false);
+			}
 			if (_button != null) {
 				_button.setEnabled (true);
 			}
@@ -114,6 +144,10 @@ public class DisplayPanel extends JPanel {
 	private SortingPanel _sortingPanel;
 	/* The sort button; onclick starts a SortingRunner */
 	private JButton _sortButton;
+	/* The cancel button; onclick cancels the running SortingRunner */
+	private JButton _cancelButton;
+	/* The token that cancels the running sort */
+	private volatile CancellationToken _cancellation;
 	/* Text area that contains information about the selected sorting algorithm*/
 	private JTextArea _algorithmInfoArea;
 	/* Label field that contains the last completed sort time */
@@ -155,6 +189,13 @@ public class DisplayPanel extends JPanel {
 				_sortButton_ActionListener_actionPerformed (event);
 			}
 		});
+		_cancelButton = new JButton ("Cancel");
+		_cancelButton.setEnabled (false);
+		_cancelButton.addActionListener (new ActionListener () {
+			public void actionPerformed (ActionEvent event) {
+				_cancelButton_ActionListener_actionPerformed (event);
+			}
+		});
 		JLabel algorithmInfoLabel = new JLabel ("Algorithm Info: ");
 		_algorithmInfoArea = new JTextArea (7, 18);
 		_algorithmInfoArea.setEditable (false);
@@ -203,6 +244,8 @@ public class DisplayPanel extends JPanel {
 		layout.putConstraint (SpringLayout.NORTH, _sortButton, 5, SpringLayout.SOUTH, _sortingPanel);
 		
 		layout.putConstraint (SpringLayout.EAST, _sortButton, -20, SpringLayout.EAST, _sortingPanel);
+		layout.putConstraint (SpringLayout.NORTH, _cancelButton, 5, SpringLayout.SOUTH, _sortingPanel);
+		layout.putConstraint (SpringLayout.EAST, _cancelButton, -5, SpringLayout.WEST, _sortButton);
 		layout.putConstraint (SpringLayout.SOUTH, this, 5, SpringLayout.SOUTH, _sortButton);
 
 		
@@ -218,6 +261,7 @@ public class DisplayPanel extends JPanel {
 		add (_sortingTimeLabel);
 		add (_sortingPanel);
 		add (_sortButton);
+		add (_cancelButton);
 	}
 	
 	/*
@@ -286,8 +330,22 @@ public class DisplayPanel extends JPanel {
 
 		_sortingPanel.displayArrows (_arrowCheckbox.isSelected ());
 		_sortingPanel.displayColumns (_columnCheckbox.isSelected ());
-		Thread thread = new Thread (new SortingRunner (_sortingPanel, size, _sortButton, _sortingTimeLabel));
+		_cancellation = new CancellationToken ();
+		Thread thread = new Thread (new SortingRunner (_sortingPanel, size, _sortButton, _cancelButton, _sortingTimeLabel, _cancellation));
 		thread.start ();
 	}
 	
+	/*
+	 * ActionListener implementation that cancels the running SortingRunner,
+	 * which stops at the next checkpoint of the sort
+	 * @param event The event that occurred
+	 */
+	private void _cancelButton_ActionListener_actionPerformed (ActionEvent event) {
+		CancellationToken cancellation = _cancellation;
+		if (cancellation != null) {
+			cancellation.cancel ();
+		}
+		_cancelButton.setEnabled (false);
+	}
+	
 }
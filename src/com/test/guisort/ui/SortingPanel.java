@@ -7,6 +7,7 @@ package com.test.guisort.ui;
 import java.util.*;
 import java.awt.*;
 import java.awt.geom.*;
+import java.awt.image.*;
 import javax.swing.*;
 import com.test.guisort.sorts.*;
 
@@ -24,9 +25,37 @@ public class SortingPanel extends JPanel implements ISortEventListener<Integer>
 	 * @author Nicholas DiPasquale
 	 */
 	public enum Algorithm {
-		BubbleSort, InsertionSort, SelectionSort, ShellSort,
-		HeapSort, MergeSort, QuickSort;
+		BubbleSort (SortAlgorithm.BubbleSort),
+		InsertionSort (SortAlgorithm.InsertionSort),
+		SelectionSort (SortAlgorithm.SelectionSort),
+		ShellSort (SortAlgorithm.ShellSort),
+		HeapSort (SortAlgorithm.HeapSort),
+		MergeSort (SortAlgorithm.MergeSort),
+		QuickSort (SortAlgorithm.QuickSort),
+		PdqSort (SortAlgorithm.PdqSort),
+		PrimitiveSort (SortAlgorithm.PrimitiveSort),
+		Auto (SortAlgorithm.Auto);
+		
+		/* The SortAlgorithm that creates the SortingSets */
+		private final SortAlgorithm _algorithm;
+		
+		/*
+		 * Create an Algorithm of the panel for the given SortAlgorithm
+		 * @param algorithm The SortAlgorithm that creates the SortingSets
+		 */
+		private Algorithm (SortAlgorithm algorithm) {
+			_algorithm = algorithm;
+		}
 
+		/**
+		 * Create an empty SortingSet that sorts with the algorithm
+		 * @param <T>
+		 * @return A new SortingSet of the algorithm
+		 */
+		public <T> SortingSet<T> createSet () {
+			return _algorithm.createSet ();
+		}
+		
 		/**
 		 * Execute the search using the specified algorithm
 		 * @param panel The SortingPanel to display the search actions
@@ -34,36 +63,29 @@ public class SortingPanel extends JPanel implements ISortEventListener<Integer>
 		 * @return The sorted array of data
 		 */
 		public Integer[] execute (SortingPanel panel, Integer[] data) {
-			SortingSet<Integer> set;
-			switch (this) {
-			default:
-			case BubbleSort: {
-				set = new BubbleSet<Integer> ();
-			} break;
-			case InsertionSort: {
-				set = new InsertionSet<Integer> ();
-			} break;
-			case SelectionSort: {
-				set = new SelectionSet<Integer> ();
-			} break;
-			case ShellSort: {
-				set = new ShellSet<Integer> ();
-			} break;
-			case HeapSort: {
-				set = new HeapSet<Integer> ();
-			} break;
-			case MergeSort: {
-				set = new MergeSet<Integer> ();
-			} break;
-			case QuickSort: {
-				set = new QuickSet<Integer> ();
-			} break;
-			}
-			
+			return execute (panel, data, null);
+		}
+		/**
+		 * Execute the search using the specified algorithm, stopping with a
+		 * CancellationException once the given token is cancelled
+		 * @param panel The SortingPanel to display the search actions
+		 * @param data The data to perform the sort
+		 * @param cancellation The token to check while sorting or null
+		 * @return The sorted array of data
+		 */
+		public Integer[] execute (SortingPanel panel, Integer[] data, CancellationToken cancellation) {
+			SortingSet<Integer> set = createSet ();
+			set.cancellation (cancellation);
 			set.addSortEventListener (panel);
 			set.addAll (Arrays.asList (data));
+			panel.displaySet (set);
 			
-			return set.sort (data);
+			try {
+				return set.sort (data);
+			} finally {
+				/* Resynchronize with any changes made without events */
+				panel.displaySet (set);
+			}
 		}
 		
 		/**
@@ -71,32 +93,33 @@ public class SortingPanel extends JPanel implements ISortEventListener<Integer>
 		 * @return General information about the sorting algorithm
 		 */
 		public String getInfo () {
-			switch (this) {
-			case BubbleSort: 
-				return new BubbleSet ().getSortInformation ();
-			case InsertionSort:
-				return new InsertionSet ().getSortInformation ();
-			case SelectionSort:
-				return new SelectionSet ().getSortInformation ();
-			case ShellSort:
-				return new ShellSet ().getSortInformation ();
-			case HeapSort:
-				return new HeapSet ().getSortInformation ();
-			case MergeSort:
-				return new MergeSet ().getSortInformation ();
-			case QuickSort:
-				return new QuickSet ().getSortInformation ();
-			}
-			
-			return "";
+			return createSet ().getSortInformation ();
 		}
 		
 	} /* END: enum Algorithm */
 	
 	/* The set of data to display on the panel */
 	private Set<Integer> _displaySet;
+	/* The values of the display set, updated from the events alone */
+	private volatile int[] _mirror;
+	/* The mirrored values of each set that fired events during the sort */
+	private final Map<Set<Integer>, int[]> _mirrors;
+	/* The columns changed since the last frame */
+	private final BitSet _dirty;
+	/* The columns redrawn by the current frame */
+	private final BitSet _painting;
+	/* Flag to redraw every column on the next frame */
+	private boolean _full;
+	/* The back buffer that holds the drawn columns between frames */
+	private BufferedImage _buffer;
+	/* The strip of the back buffer being redrawn */
+	private final Rectangle _strip;
+	/* The shape of the column being drawn */
+	private final Rectangle2D.Double _column;
 	/* An arrow to display for a swap action taken */
 	private Arrow2D _arrow;
+	/* The bounds of the arrow on screen, erased by the next frame */
+	private Rectangle _arrowBounds;
 	/* Flag to display arrows */
 	private boolean _displayArrows;
 	/* Flag to display columns */
@@ -112,7 +135,16 @@ public class SortingPanel extends JPanel implements ISortEventListener<Integer>
 	 */
 	public SortingPanel () {
 		_displaySet = null;
+		_mirror = null;
+		_mirrors = new IdentityHashMap<Set<Integer>, int[]> ();
+		_dirty = new BitSet ();
+		_painting = new BitSet ();
+		_full = true;
+		_buffer = null;
+		_strip = new Rectangle ();
+		_column = new Rectangle2D.Double ();
 		_arrow = null;
+		_arrowBounds = null;
 		_displayArrows = true;
 		_displayColumns = true;
 		_algorithm = null; // Algorithm.values ()[0];
@@ -149,7 +181,10 @@ public class SortingPanel extends JPanel implements ISortEventListener<Integer>
 	 * @param display The status of the display columns flag
 	 */
 	public void displayColumns (boolean display) {
-		_displayColumns = display;
+		synchronized (_mirrors) {
+			_displayColumns = display;
+			_full = true;
+		}
 	}
 	
 	/**
@@ -175,11 +210,142 @@ public class SortingPanel extends JPanel implements ISortEventListener<Integer>
 		return _displaySet;
 	}
 	/**
-	 * Set the display set of the SortingPanel
+	 * Set the display set of the SortingPanel.  The values of the set are
+	 * copied once and the copy is then kept up to date from the SortEvents.
 	 * @param set The display set to display on the SortingPanel
 	 */
 	public void displaySet (Set<Integer> set) {
-		_displaySet = set;
+		synchronized (_mirrors) {
+			_mirrors.clear ();
+			_displaySet = set;
+			_mirror = (set != null) ? mirror (set) : null;
+			_full = true;
+		}
+	}
+	
+	/*
+	 * Copy the values of the given set into a new mirror and remember it
+	 * @param set The set to copy
+	 * @return The mirrored values of the set
+	 */
+	private int[] mirror (Set<Integer> set) {
+		Integer[] array = set.toArray (new Integer[set.size ()]);
+		int[] mirror = new int[array.length];
+		for (int i = 0; i < array.length; ++i) {
+			mirror[i] = array[i].intValue ();
+		}
+		_mirrors.put (set, mirror);
+		return mirror;
+	}
+	
+	/*
+	 * Apply the change of a SortEvent to the mirror of its set, copying the
+	 * set the first time it fires an event, and mark the changed columns
+	 * @param event The event that occurred
+	 * @return The mirrored values of the set
+	 */
+	private int[] apply (SortEvent<Integer> event) {
+		synchronized (_mirrors) {
+			Set<Integer> set = event.getSet ();
+			int[] mirror = _mirrors.get (set);
+			int index0 = event.getIndex0 (), index1 = event.getIndex1 ();
+			if (mirror == null || mirror.length != set.size ()) {
+				/* The copy already holds the change */
+				mirror = mirror (set);
+			} else {
+				switch (event.getType ()) {
+				case Swap:
+					int value = mirror[index0];
+					mirror[index0] = mirror[index1];
+					mirror[index1] = value;
+					break;
+				case Write:
+					mirror[index0] = event.getValue ().intValue ();
+					break;
+				case Move:
+					if (index0 < index1) {
+						System.arraycopy (mirror, index0, mirror, index0 + 1, index1 - index0);
+					} else {
+						System.arraycopy (mirror, index1 + 1, mirror, index1, index0 - index1);
+					}
+					mirror[index0] = event.getValue ().intValue ();
+					break;
+				}
+			}
+			
+			int[] previous = _mirror;
+			if (previous == mirror) {
+				if (event.getType () == SortEvent.Type.Move) {
+					_dirty.set (Math.min (index0, index1), Math.max (index0, index1) + 1);
+				} else {
+					_dirty.set (index0);
+					_dirty.set (index1);
+				}
+			} else if (previous != null && previous.length == mirror.length) {
+				/* Only the columns that differ between the sets are redrawn */
+				for (int i = 0; i < mirror.length; ++i) {
+					if (previous[i] != mirror[i]) {
+						_dirty.set (i);
+					}
+				}
+			} else {
+				_full = true;
+			}
+			_displaySet = set;
+			_mirror = mirror;
+			return mirror;
+		}
+	}
+	
+	/*
+	 * Set the strip of the panel covered by a run of columns, inside of the
+	 * border
+	 * @param strip The Rectangle to set
+	 * @param from The first column of the run
+	 * @param to The column after the last column of the run
+	 * @param count The number of columns
+	 * @param size The size of the panel
+	 */
+	private static void strip (Rectangle strip, int from, int to, int count, Dimension size) {
+		double width = (double) size.width / (double) count;
+		int x0 = Math.max ((int) Math.floor ((double) from * width) + 1, 1);
+		int x1 = Math.min ((int) Math.ceil ((double) to * width) + 1, size.width - 1);
+		strip.setBounds (x0, 1, Math.max (x1 - x0, 0), size.height - 2);
+	}
+	
+	/*
+	 * Draw a run of columns into the back buffer, clipped to the strip of
+	 * the panel they cover
+	 * @param g2d The Graphics of the back buffer
+	 * @param mirror The values of the columns
+	 * @param from The first column of the run
+	 * @param to The column after the last column of the run
+	 * @param size The size of the panel
+	 */
+	private void drawColumns (Graphics2D g2d, int[] mirror, int from, int to, Dimension size) {
+		strip (_strip, from, to, mirror.length, size);
+		g2d.setClip (_strip);
+		g2d.setColor (getBackground ());
+		g2d.fill (_strip);
+		
+		double width = (double) size.width / (double) mirror.length;
+		/* Columns narrower than a pixel share pixels with their neighbors */
+		int first = Math.max ((int) ((double) (_strip.x - 1) / width) - 1, 0);
+		int last = Math.min ((int) Math.ceil ((double) (_strip.x + _strip.width - 1) / width) + 1, mirror.length);
+		for (int i = first; i < last; ++i) {
+			int pos = mirror[i];
+			double x = ((double) i * width) + 1.0;
+			double w = width - 1.0;
+			if (_displayColumns) {
+				g2d.setColor (Color.BLACK);
+				_column.setRect (x, (double) size.height - ((double) pos - 4.0), w, (double) size.height);
+				g2d.fill (_column);
+			}
+			
+			g2d.setColor (Color.BLUE);
+			_column.setRect (x, (double) size.height - (double) pos, w, 3.0);
+			g2d.fill (_column);
+		}
 	}
 	
 	/**
@@ -187,46 +353,58 @@ public class SortingPanel extends JPanel implements ISortEventListener<Integer>
 	 * @see javax.swing.JComponent#paintComponent (java.awt.Graphics)
 	 */
 	protected void paintComponent (Graphics g) {
-		super.paintComponent (g);
-		
-		Graphics2D g2d = (Graphics2D) g;
-		
 		Dimension size = getSize ();
+		if (size.width < 3 || size.height < 3) {
+			complete ();
+			return;
+		}
 		
-		g2d.setColor (Color.DARK_GRAY);
-		g2d.drawRect (0, 0, size.width - 1, size.height - 1);
+		boolean resized = _buffer == null || _buffer.getWidth () != size.width || _buffer.getHeight () != size.height;
+		int[] mirror;
+		boolean full;
+		synchronized (_mirrors) {
+			mirror = _mirror;
+			full = _full || resized;
+			_full = false;
+			_painting.clear ();
+			_painting.or (_dirty);
+			_dirty.clear ();
+		}
 		
-		if (_displaySet != null) {
-			double width = (double) size.width / (double) _displaySet.size ();
-			
-			Integer[] array = _displaySet.toArray (new Integer[_displaySet.size ()]);
-			for (int i = 0; i < array.length; ++i) {
-				int pos = array[i].intValue ();
-				if (_displayColumns) {
-					double x = ((double) i * width) + 1.0;
-					double y = (double) size.height - ((double) pos - 4.0); 
-					double w = width - 1;
-					double h = (double) size.height;
-					
-					g2d.setColor (Color.BLACK);
-					Rectangle2D rect = new Rectangle2D.Double (x, y, w, h);
-					g2d.fill (rect);
+		/* Only the columns changed since the last frame are redrawn */
+		if (resized) {
+			_buffer = new BufferedImage (size.width, size.height, BufferedImage.TYPE_INT_RGB);
+		}
+		Graphics2D buffer = _buffer.createGraphics ();
+		try {
+			if (full) {
+				buffer.setColor (getBackground ());
+				buffer.fillRect (0, 0, size.width, size.height);
+				buffer.setColor (Color.DARK_GRAY);
+				buffer.drawRect (0, 0, size.width - 1, size.height - 1);
+				if (mirror != null && mirror.length > 0) {
+					drawColumns (buffer, mirror, 0, mirror.length, size);
+				}
+			} else if (mirror != null) {
+				for (int i = _painting.nextSetBit (0); i >= 0 && i < mirror.length; i = _painting.nextSetBit (i)) {
+					int end = Math.min (_painting.nextClearBit (i), mirror.length);
+					drawColumns (buffer, mirror, i, end, size);
+					i = end;
 				}
-				
-				double x = ((double) i * width) + 1.0;
-				double y = (double) size.height - (double) pos;
-				double w = width - 1.0;
-				double h = 3.0;
-				
-				g2d.setColor (Color.BLUE);
-				Rectangle2D rect = new Rectangle2D.Double (x, y, w, h);
-				g2d.fill (rect);
 			}
+		} finally {
+			buffer.dispose ();
 		}
-
+		
+		Graphics2D g2d = (Graphics2D) g;
+		g2d.drawImage (_buffer, 0, 0, null);
+		
 		if (_arrow != null && _displayArrows) {
 			g2d.setColor (Color.RED);
 			g2d.draw (_arrow);
+			/* The arrow is drawn over the back buffer for a single frame */
+			_arrowBounds = _arrow.getBounds ();
+			_arrowBounds.grow (2, 2);
 			_arrow = null;
 		}
 		
@@ -239,19 +417,49 @@ public class SortingPanel extends JPanel implements ISortEventListener<Integer>
 	 * @param event The event that occurred
 	 */
 	public void swapPerformed (SortEvent<Integer> event) {
-		_displaySet  = event.getSet ();
+		int[] mirror = apply (event);
 		
 		Dimension size = getSize ();
-		double width = (double) size.width / (double) _displaySet.size ();
+		double width = (double) size.width / (double) mirror.length;
 		
-		Integer[] array = _displaySet.toArray(new Integer[_displaySet.size ()]);
-		Point2D p0 = new Point2D.Double ((double) event.getIndex0 () * width + (width / 2.0), (double) size.height - array[event.getIndex0 ()].doubleValue ());
-		Point2D p1 = new Point2D.Double ((double) event.getIndex1 () * width + (width / 2.0), (double) size.height - array[event.getIndex1 ()].doubleValue ());
+		Point2D p0 = new Point2D.Double ((double) event.getIndex0 () * width + (width / 2.0), (double) size.height - (double) mirror[event.getIndex0 ()]);
+		Point2D p1 = new Point2D.Double ((double) event.getIndex1 () * width + (width / 2.0), (double) size.height - (double) mirror[event.getIndex1 ()]);
 		Point2D ctrl = new Point2D.Double ((p1.getX () + p0.getX ()) / 2.0, 0.0);
 		
-		_arrow = new Arrow2D (p0.getX (), p0.getY (), ctrl.getX (), ctrl.getY (), p1.getX (), p1.getY (), Arrow2D.DOUBLE_HEADED);
+		Arrow2D arrow = new Arrow2D (p0.getX (), p0.getY (), ctrl.getX (), ctrl.getY (), p1.getX (), p1.getY (), Arrow2D.DOUBLE_HEADED);
+		
+		Rectangle dirty = null;
+		synchronized (_mirrors) {
+			if (_full || mirror.length == 0) {
+				dirty = new Rectangle (0, 0, size.width, size.height);
+			} else {
+				for (int i = _dirty.nextSetBit (0); i >= 0; i = _dirty.nextSetBit (i + 1)) {
+					Rectangle changed = new Rectangle ();
+					strip (changed, i, i + 1, mirror.length, size);
+					if (dirty == null) {
+						dirty = changed;
+					} else {
+						dirty.add (changed);
+					}
+				}
+			}
+		}
+		if (_displayArrows) {
+			Rectangle bounds = arrow.getBounds ();
+			bounds.grow (2, 2);
+			dirty = (dirty == null) ? bounds : dirty.union (bounds);
+		}
+		if (_arrowBounds != null) {
+			dirty = (dirty == null) ? _arrowBounds : dirty.union (_arrowBounds);
+			_arrowBounds = null;
+		}
+		_arrow = arrow;
+		if (dirty == null) {
+			/* Nothing changed on screen, but the sort still waits for a frame */
+			dirty = new Rectangle (0, 0, 1, 1);
+		}
 		
-		update ();
+		update (dirty);
 	}
 	
 	/*
@@ -269,9 +477,10 @@ public class SortingPanel extends JPanel implements ISortEventListener<Integer>
 	
 	/*
 	 * Flags an repaint required to the Monitor/Working Thread
+	 * @param dirty The region of the panel changed by the event
 	 */
-	private synchronized void update () {
-		repaint ();
+	private synchronized void update (Rectangle dirty) {
+		repaint (dirty);
 		
 		try {
 			wait (100);
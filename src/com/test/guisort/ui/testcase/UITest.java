@@ -6,8 +6,12 @@ package com.test.guisort.ui.testcase;
 
 import java.awt.geom.AffineTransform;
 
+import java.awt.*;
 import java.awt.geom.*;
+import java.awt.image.*;
+import java.util.*;
 import junit.framework.*;
+import com.test.guisort.sorts.*;
 import com.test.guisort.ui.*;
 
 /**
@@ -65,4 +69,51 @@ public class UITest extends TestCase {
 		Assert.assertTrue (iterator.isDone ());
 	}
 	
+	/**
+	 * Test case to render a SortingPanel from its back buffer after events
+	 * that change a few columns, the frame must match a full render of the
+	 * changed data.
+	 */
+	public void test_SortingPanel_DirtyRegions () {
+		Integer[] data = new Integer[] { 40, 90, 10, 250, 120, 60, 200, 30, 170, 80 };
+		Integer[] changed = data.clone ();
+		SortingPanel panel = render (data);
+		BufferedImage frame = new BufferedImage (300, 300, BufferedImage.TYPE_INT_RGB);
+		panel.paint (frame.getGraphics ());
+		
+		SortingSet<Integer> set = (SortingSet<Integer>) panel.displaySet ();
+		panel.swapPerformed (new SortEvent<Integer> (set, SortEvent.Type.Swap, 1, 8, null));
+		Collections.swap (Arrays.asList (changed), 1, 8);
+		panel.paint (frame.getGraphics ());
+		panel.swapPerformed (new SortEvent<Integer> (set, SortEvent.Type.Write, 4, 4, 15));
+		changed[4] = 15;
+		panel.paint (frame.getGraphics ());
+		panel.swapPerformed (new SortEvent<Integer> (set, SortEvent.Type.Move, 2, 6, changed[6]));
+		Collections.rotate (Arrays.asList (changed).subList (2, 7), 1);
+		panel.paint (frame.getGraphics ());
+		
+		BufferedImage expected = new BufferedImage (300, 300, BufferedImage.TYPE_INT_RGB);
+		render (changed).paint (expected.getGraphics ());
+		for (int y = 0; y < 300; ++y) {
+			for (int x = 0; x < 300; ++x) {
+				Assert.assertEquals ("Pixel " + x + ", " + y, expected.getRGB (x, y), frame.getRGB (x, y));
+			}
+		}
+	}
+	
+	/*
+	 * Create a SortingPanel without arrows that displays the given data
+	 * @param data The data to display
+	 * @return The SortingPanel
+	 */
+	private static SortingPanel render (Integer[] data) {
+		SortingPanel panel = new SortingPanel ();
+		panel.setSize (300, 300);
+		panel.displayArrows (false);
+		SortingSet<Integer> set = new QuickSet<Integer> ();
+		set.addAll (Arrays.asList (data));
+		panel.displaySet (set);
+		return panel;
+	}
+	
 }